@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a synthetic dictionary, corrections file and document from a seed, so that benchmark
+ * runs on different machines measure exactly the same inputs.
+ *
+ * <p>Words are random strings of letters drawn with English letter frequencies, with lengths
+ * between 2 and 16 letters peaking around 7. Documents draw words from the dictionary by a Zipf
+ * distribution over their rank, as natural text does, so a few words are very frequent and most
+ * are rare. A chosen fraction of document words is misspelled by one random edit: a swap of
+ * adjacent letters, a deletion, an insertion or a substitution. Only java.util.Random is used,
+ * whose sequence is fixed by its specification, so a seed always yields the same files.
+ *
+ * <p>Run from the command line to write the files:
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar Corpus &lt;directory&gt; [seed] [words] [documentWords]
+ * </pre>
+ */
+public class Corpus {
+  /** The Zipf exponent of word frequencies, close to that of English text. */
+  public static final double ZIPF_EXPONENT = 1.07;
+
+  private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+  private static final double[] LETTER_WEIGHTS = {
+    12.7, 9.1, 8.2, 7.5, 7.0, 6.7, 6.3, 6.1, 6.0, 4.3, 4.0, 2.8, 2.8, 2.4, 2.4, 2.2, 2.0, 2.0,
+    1.9, 1.5, 1.0, 0.8, 0.15, 0.15, 0.1, 0.07
+  };
+  private static final double[] LENGTH_WEIGHTS = {
+    0, 0, 2, 5, 8, 10, 11, 11, 10, 9, 7, 6, 4, 3, 2, 1, 1
+  };
+
+  private final long seed;
+  private final List<String> words;
+  private final Set<String> wordSet;
+  private final double[] zipf;
+
+  /**
+   * Generates a dictionary of the argued size. The same seed and size always give the same words
+   * in the same order; the order is also the frequency rank used for documents.
+   *
+   * @param seed The seed of the generator
+   * @param dictionaryWords The number of distinct words in the dictionary
+   * @throws IllegalArgumentException If dictionaryWords is less than one
+   */
+  public Corpus(long seed, int dictionaryWords) {
+    if (dictionaryWords < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.seed = seed;
+    Random random = new Random(seed);
+    double[] letters = cumulative(LETTER_WEIGHTS);
+    double[] lengths = cumulative(LENGTH_WEIGHTS);
+    Set<String> generated = new LinkedHashSet<>();
+    char[] buffer = new char[LENGTH_WEIGHTS.length];
+    while (generated.size() < dictionaryWords) {
+      int length = sample(lengths, random);
+      for (int i = 0; i < length; i++) {
+        buffer[i] = LETTERS.charAt(sample(letters, random));
+      }
+      generated.add(new String(buffer, 0, length));
+    }
+    words = Collections.unmodifiableList(new ArrayList<>(generated));
+    wordSet = generated;
+
+    double[] frequencies = new double[dictionaryWords];
+    for (int rank = 0; rank < dictionaryWords; rank++) {
+      frequencies[rank] = 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+    }
+    zipf = cumulative(frequencies);
+  }
+
+  /**
+   * Returns the words of the dictionary, most frequent first.
+   *
+   * @return The unmodifiable list of words
+   */
+  public List<String> getWords() {
+    return words;
+  }
+
+  /**
+   * Returns the dictionary as text, one word per line, in a form Dictionary can read.
+   *
+   * @return The dictionary text
+   */
+  public String dictionaryText() {
+    return String.join("\n", words) + "\n";
+  }
+
+  /**
+   * Draws words from the dictionary by their Zipf frequency.
+   *
+   * @param count The number of words to draw
+   * @param stream Distinguishes independent samples with the same seed
+   * @return The words drawn, with repeats
+   */
+  public String[] sample(int count, int stream) {
+    Random random = random(stream);
+    String[] sample = new String[count];
+    for (int i = 0; i < count; i++) {
+      sample[i] = words.get(sample(zipf, random));
+    }
+    return sample;
+  }
+
+  /**
+   * Generates misspellings of dictionary words of the argued length, drawn by Zipf frequency.
+   * Each misspelling is one edit from its word and is not itself in the dictionary.
+   *
+   * @param count The number of misspellings to generate
+   * @param length The length of the words misspelled, or 0 for any length
+   * @param stream Distinguishes independent samples with the same seed
+   * @return The misspellings
+   */
+  public String[] misspellings(int count, int length, int stream) {
+    Random random = random(stream);
+    String[] misspellings = new String[count];
+    int n = 0;
+    while (n < count) {
+      String word = words.get(sample(zipf, random));
+      if (length == 0 || word.length() == length) {
+        misspellings[n++] = misspell(word, random);
+      }
+    }
+    return misspellings;
+  }
+
+  /**
+   * Generates a corrections file for FileCorrector: up to two misspellings of each of the most
+   * frequent words, one "misspelling,correction" pair per line.
+   *
+   * @param numWords The number of words to write misspellings of
+   * @return The text of the corrections file
+   */
+  public String correctionsText(int numWords) {
+    Random random = random(-1);
+    StringBuilder text = new StringBuilder();
+    for (int rank = 0; rank < Math.min(numWords, words.size()); rank++) {
+      String word = words.get(rank);
+      for (int i = 0; i < 2; i++) {
+        text.append(misspell(word, random)).append(',').append(word).append('\n');
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Generates a document of sentences of Zipf-distributed words with the argued fraction of
+   * them misspelled. The first word of each sentence is capitalized, and sentences are separated
+   * by punctuation, spaces and occasional line breaks.
+   *
+   * @param numWords The number of words in the document
+   * @param misspellingRate The fraction of words that are misspelled
+   * @param stream Distinguishes independent documents with the same seed
+   * @return The text of the document
+   */
+  public String document(int numWords, double misspellingRate, int stream) {
+    Random random = random(stream);
+    StringBuilder text = new StringBuilder(numWords * 8);
+    int sentenceLeft = 0;
+    for (int i = 0; i < numWords; i++) {
+      String word = words.get(sample(zipf, random));
+      if (random.nextDouble() < misspellingRate) {
+        word = misspell(word, random);
+      }
+      if (sentenceLeft == 0) {
+        sentenceLeft = 5 + random.nextInt(16);
+        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+      }
+      text.append(word);
+      if (--sentenceLeft == 0) {
+        text.append(random.nextInt(8) == 0 ? "?\n" : ". ");
+      } else {
+        text.append(random.nextInt(10) == 0 ? ", " : " ");
+      }
+    }
+    return text.toString();
+  }
+
+  /** Applies one random edit to a word, retrying until the result is not a word. */
+  private String misspell(String word, Random random) {
+    while (true) {
+      StringBuilder b = new StringBuilder(word);
+      int i = random.nextInt(word.length());
+      switch (random.nextInt(4)) {
+        case 0:
+          if (word.length() < 2) {
+            continue;
+          }
+          i = Math.min(i, word.length() - 2);
+          b.setCharAt(i, word.charAt(i + 1));
+          b.setCharAt(i + 1, word.charAt(i));
+          break;
+        case 1:
+          if (word.length() < 3) {
+            continue;
+          }
+          b.deleteCharAt(i);
+          break;
+        case 2:
+          b.insert(i, (char) ('a' + random.nextInt(26)));
+          break;
+        default:
+          b.setCharAt(i, (char) ('a' + random.nextInt(26)));
+          break;
+      }
+      String misspelling = b.toString();
+      if (!wordSet.contains(misspelling)) {
+        return misspelling;
+      }
+    }
+  }
+
+  private Random random(int stream) {
+    return new Random(seed * 31 + stream);
+  }
+
+  /** Returns the running sums of the argued weights, scaled to end at 1. */
+  private static double[] cumulative(double[] weights) {
+    double[] sums = new double[weights.length];
+    double sum = 0;
+    for (int i = 0; i < weights.length; i++) {
+      sum += weights[i];
+      sums[i] = sum;
+    }
+    for (int i = 0; i < sums.length; i++) {
+      sums[i] /= sum;
+    }
+    return sums;
+  }
+
+  /** Draws an index with the probabilities given by running sums. */
+  private static int sample(double[] cumulative, Random random) {
+    int i = Arrays.binarySearch(cumulative, random.nextDouble());
+    return Math.min(i < 0 ? -i - 1 : i, cumulative.length - 1);
+  }
+
+  /**
+   * Writes dictionary.txt, corrections.txt and document.txt into a directory.
+   *
+   * @param args The directory, then optionally the seed, the number of dictionary words and the
+   *     number of document words
+   * @throws IOException If the files cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: java Corpus <directory> [seed] [dictionaryWords] [documentWords]");
+      System.exit(2);
+    }
+    Path directory = Paths.get(args[0]);
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+    int dictionaryWords = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+    int documentWords = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+    Corpus corpus = new Corpus(seed, dictionaryWords);
+    Files.createDirectories(directory);
+    write(directory.resolve("dictionary.txt"), corpus.dictionaryText());
+    write(directory.resolve("corrections.txt"), corpus.correctionsText(dictionaryWords / 10));
+    write(directory.resolve("document.txt"), corpus.document(documentWords, 0.05, 0));
+  }
+
+  private static void write(Path file, String text) throws IOException {
+    try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      w.write(text);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a SpellCheckServer from localhost with a closed loop of concurrent clients, and reports
+ * the requests per second and the latency percentiles of each endpoint.
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar ServerLoadTest [seconds] [clients] [port]
+ * </pre>
+ *
+ * <p>Without a port, a server is started in this process over a synthetic Corpus dictionary with a
+ * SwapCorrector, with Nagle's algorithm off as in SpellCheckServer.main, and its batching
+ * statistics are reported too. With a port, an already running
+ * server is driven; its dictionary should then be written by Corpus with the same seed, or most
+ * requests will ask about unknown words.
+ *
+ * <p>Each client sends one request at a time and the next as soon as the answer arrives: 90%
+ * /corrections of Zipf-distributed misspellings, 9% /isWord of dictionary words and 1% /check of a
+ * 200 word document. The first quarter of the run warms up the server and is not measured.
+ */
+public class ServerLoadTest {
+  private static final String[] ENDPOINTS = {"corrections", "isWord", "check"};
+
+  /**
+   * Runs the load test.
+   *
+   * @param args Optionally, the duration in seconds (default 20), the number of concurrent clients
+   *     (default 64) and the port of a running server
+   * @throws Exception If the test fails
+   */
+  public static void main(String[] args) throws Exception {
+    long seconds = args.length > 0 ? Long.parseLong(args[0]) : 20;
+    int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+    Corpus corpus = new Corpus(Long.getLong("bench.seed", 42), 100_000);
+    SpellCheckServer server = null;
+    int port;
+    if (args.length > 2) {
+      port = Integer.parseInt(args[2]);
+    } else {
+      System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+      Dictionary dict = new Dictionary(new TokenScanner(new StringReader(corpus.dictionaryText())));
+      server = new SpellCheckServer(dict, new SwapCorrector(dict),
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      port = server.getPort();
+    }
+    String base = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port;
+    String[] misspellings = corpus.misspellings(10_000, 0, 1);
+    String[] words = corpus.sample(10_000, 2);
+    String document = corpus.document(200, 0.05, 3);
+
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    LatencyHistogram[] latency = new LatencyHistogram[ENDPOINTS.length];
+    for (int i = 0; i < latency.length; i++) {
+      latency[i] = new LatencyHistogram();
+    }
+    AtomicLong errors = new AtomicLong();
+    long start = System.nanoTime();
+    long measureFrom = start + TimeUnit.SECONDS.toNanos(seconds) / 4;
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int c = 0; c < clients; c++) {
+      int offset = c * 7919;
+      Thread thread = new Thread(() -> {
+        for (int n = offset; System.nanoTime() < end; n++) {
+          int endpoint = n % 100 < 90 ? 0 : n % 100 < 99 ? 1 : 2;
+          HttpRequest request;
+          if (endpoint == 0) {
+            request = get(base, "/corrections", misspellings[n % misspellings.length]);
+          } else if (endpoint == 1) {
+            request = get(base, "/isWord", words[n % words.length]);
+          } else {
+            request = HttpRequest.newBuilder(URI.create(base + "/check?policy=first"))
+                .POST(HttpRequest.BodyPublishers.ofString(document)).build();
+          }
+          long sent = System.nanoTime();
+          try {
+            HttpResponse<byte[]> response =
+                client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+              errors.incrementAndGet();
+            }
+          } catch (Exception e) {
+            errors.incrementAndGet();
+          }
+          long received = System.nanoTime();
+          if (sent >= measureFrom) {
+            latency[endpoint].record(received - sent);
+          }
+        }
+      }, "client " + c);
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double measured = (System.nanoTime() - measureFrom) / 1e9;
+
+    long total = 0;
+    for (LatencyHistogram histogram : latency) {
+      total += histogram.getCount();
+    }
+    System.out.printf(Locale.ROOT, "%d clients, %.1f s measured, %d requests, %d errors%n",
+        clients, measured, total, errors.get());
+    System.out.printf(Locale.ROOT, "throughput %.0f requests/s%n", total / measured);
+    for (int i = 0; i < ENDPOINTS.length; i++) {
+      LatencyHistogram h = latency[i];
+      System.out.printf(Locale.ROOT,
+          "%-12s %8.0f req/s  latency us: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+          ENDPOINTS[i], h.getCount() / measured, h.getValueAtPercentile(50) / 1e3,
+          h.getValueAtPercentile(90) / 1e3, h.getValueAtPercentile(99) / 1e3,
+          h.getValueAtPercentile(99.9) / 1e3, h.getMax() / 1e3);
+    }
+    if (server != null) {
+      System.out.printf(Locale.ROOT, "corrections batches: mean size %.2f, %.1f%% shared%n",
+          server.getMeanBatchSize(), server.getSharedFraction() * 100);
+      server.close();
+    }
+  }
+
+  private static HttpRequest get(String base, String path, String word) {
+    return HttpRequest.newBuilder(
+        URI.create(base + path + "?word=" + URLEncoder.encode(word, StandardCharsets.UTF_8)))
+        .build();
+  }
+}
@@ -0,0 +1,259 @@
+import benchmarks.Operation;
+import benchmarks.Workloads;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The workloads of the JMH benchmarks in the benchmarks package, over a synthetic Corpus:
+ *
+ * <ul>
+ *   <li>TokenScanner throughput over a document
+ *   <li>Dictionary construction, and isWord latency for words and non-words
+ *   <li>getCorrections latency of SwapCorrector, FileCorrector and Levenshtein, for misspellings
+ *       of words of a given length
+ *   <li>getCorrections latency of Levenshtein alone and behind a FileCorrector that knows half
+ *       of the misspellings, in a CASCADE and a PARALLEL CompositeCorrector
+ *   <li>Ordering the candidates of a distance-2 BK-tree search for misspelled 4-letter words:
+ *       sorting them all alphabetically, sorting them all by distance and frequency, and picking
+ *       the top 10 by distance and frequency with SuggestionRanker
+ *   <li>SpellChecker over a whole document
+ * </ul>
+ *
+ * <p>Inputs are built the first time an operation needs them and shared by later operations, so
+ * a benchmark only pays for what it measures. The same seed and dictionary size always give the
+ * same inputs, so runs with the same settings are comparable across machines.
+ */
+public class SpellCheckWorkloads implements Workloads {
+  private final Corpus corpus;
+  private String dictionaryText;
+  private String document;
+  private Dictionary dict;
+  private Corrector levenshtein;
+  private String[] mixed;
+  private Corrector typos;
+  private String[] shortWrong;
+  private List<Set<String>> candidates;
+  private Dictionary counted;
+
+  /**
+   * Generates the corpus of the workloads.
+   *
+   * @param seed The seed of the Corpus
+   * @param dictionaryWords The number of words of the dictionary
+   * @throws IllegalArgumentException If dictionaryWords is less than one
+   */
+  public SpellCheckWorkloads(long seed, int dictionaryWords) {
+    corpus = new Corpus(seed, dictionaryWords);
+  }
+
+  public Operation get(String name, int param) throws Exception {
+    switch (name) {
+      case "TokenScanner.scan": {
+        String text = document();
+        return () -> scan(text);
+      }
+      case "Dictionary.build": {
+        String text = dictionaryText();
+        return () -> new Dictionary(new TokenScanner(new StringReader(text))).getNumWords();
+      }
+      case "Dictionary.isWord.hit": {
+        Dictionary d = dictionary();
+        String[] hits = corpus.sample(QUERIES, 1);
+        return () -> lookUp(d, hits);
+      }
+      case "Dictionary.isWord.miss": {
+        Dictionary d = dictionary();
+        String[] misses = corpus.misspellings(QUERIES, 0, 2);
+        return () -> lookUp(d, misses);
+      }
+      case "SwapCorrector.getCorrections":
+        return correct(new SwapCorrector(dictionary()), param);
+      case "FileCorrector.getCorrections":
+        return correct(new FileCorrector(new StringReader(
+            corpus.correctionsText(corpus.getWords().size() / 10))), param);
+      case "Levenshtein.getCorrections":
+        return correct(levenshtein(), param);
+      case "CompositeCorrector.none":
+        return correct(levenshtein(), mixed());
+      case "CompositeCorrector.cascade":
+        return correct(new CompositeCorrector(CompositeCorrector.Mode.CASCADE)
+            .with(typos()).with(levenshtein()), mixed());
+      case "CompositeCorrector.parallel":
+        return correct(new CompositeCorrector(CompositeCorrector.Mode.PARALLEL)
+            .with(typos()).with(levenshtein(), 1, TimeUnit.SECONDS), mixed());
+      case "Suggestions.sortAll":
+        return sortAll(candidates());
+      case "Suggestions.sortAllRanked": {
+        List<Set<String>> sets = candidates();
+        return sortAllRanked(shortWrong, sets, counted());
+      }
+      case "Suggestions.rankTop10": {
+        List<Set<String>> sets = candidates();
+        String[] wrong = shortWrong;
+        SuggestionRanker ranker = new SuggestionRanker(counted());
+        return () -> {
+          long first = 0;
+          for (int i = 0; i < QUERIES; i++) {
+            first += ranker.rank(wrong[i], sets.get(i)).get(0).length();
+          }
+          return first;
+        };
+      }
+      case "SpellChecker.checkDocument": {
+        SpellChecker checker = new SpellChecker(new SwapCorrector(dictionary()), dictionary());
+        String text = document();
+        return () -> checker.checkDocument(new StringReader(text), Writer.nullWriter(),
+            CorrectionPolicy.FIRST_SUGGESTION).size();
+      }
+      default:
+        throw new IllegalArgumentException("No such operation: " + name);
+    }
+  }
+
+  private String dictionaryText() {
+    if (dictionaryText == null) {
+      dictionaryText = corpus.dictionaryText();
+    }
+    return dictionaryText;
+  }
+
+  private String document() {
+    if (document == null) {
+      document = corpus.document(DOCUMENT_WORDS, 0.05, 0);
+    }
+    return document;
+  }
+
+  private Dictionary dictionary() throws IOException {
+    if (dict == null) {
+      dict = new Dictionary(new TokenScanner(new StringReader(dictionaryText())));
+    }
+    return dict;
+  }
+
+  private Corrector levenshtein() throws IOException {
+    if (levenshtein == null) {
+      levenshtein = new Levenshtein(dictionary());
+    }
+    return levenshtein;
+  }
+
+  /** Returns misspellings of words of any length, half of which typos() knows. */
+  private String[] mixed() {
+    if (mixed == null) {
+      mixed = corpus.misspellings(QUERIES, 0, 50);
+    }
+    return mixed;
+  }
+
+  /** Returns a FileCorrector that knows every other misspelling of mixed(). */
+  private Corrector typos() throws IOException, FileCorrector.FormatException {
+    if (typos == null) {
+      StringBuilder known = new StringBuilder();
+      for (int i = 0; i < QUERIES; i += 2) {
+        for (String correction : levenshtein().getCorrections(mixed()[i])) {
+          known.append(mixed()[i]).append(',').append(correction).append('\n');
+        }
+      }
+      typos = new FileCorrector(new StringReader(known.toString()));
+    }
+    return typos;
+  }
+
+  /** Returns the candidates of a distance-2 BK-tree search for each misspelling of shortWrong. */
+  private List<Set<String>> candidates() throws IOException {
+    if (candidates == null) {
+      shortWrong = corpus.misspellings(QUERIES, 4, 30);
+      Corrector bkTree = new BKTreeCorrector(dictionary(), 2);
+      candidates = new ArrayList<>();
+      for (String word : shortWrong) {
+        candidates.add(bkTree.getCorrections(word));
+      }
+    }
+    return candidates;
+  }
+
+  /** Returns the dictionary with frequencies learned from the document. */
+  private Dictionary counted() throws IOException {
+    if (counted == null) {
+      counted = dictionary().withFrequencies(
+          WordFrequencies.learn(dictionary(), new TokenScanner(new StringReader(document()))));
+    }
+    return counted;
+  }
+
+  private Operation correct(Corrector corrector, int length) {
+    return correct(corrector, corpus.misspellings(QUERIES, length, 10 + length));
+  }
+
+  private static Operation correct(Corrector corrector, String[] words) {
+    return () -> {
+      long corrections = 0;
+      for (String word : words) {
+        corrections += corrector.getCorrections(word).size();
+      }
+      return corrections;
+    };
+  }
+
+  private static Operation sortAll(List<Set<String>> candidates) {
+    return () -> {
+      long first = 0;
+      for (Set<String> set : candidates) {
+        List<String> sorted = new ArrayList<>(set);
+        Collections.sort(sorted);
+        first += sorted.get(0).length();
+      }
+      return first;
+    };
+  }
+
+  private static Operation sortAllRanked(
+      String[] wrongWords, List<Set<String>> candidates, Dictionary counted) {
+    return () -> {
+      long first = 0;
+      EditDistance distance = new EditDistance();
+      for (int i = 0; i < QUERIES; i++) {
+        String wrong = wrongWords[i];
+        Map<String, Long> keys = new HashMap<>();
+        for (String word : candidates.get(i)) {
+          int d = distance.damerau(wrong, word, Math.max(wrong.length(), word.length()));
+          keys.put(word, ((long) d << 40) - counted.getFrequency(word));
+        }
+        List<String> sorted = new ArrayList<>(keys.keySet());
+        sorted.sort(Comparator.comparing((String word) -> keys.get(word))
+            .thenComparing(Comparator.naturalOrder()));
+        first += sorted.get(0).length();
+      }
+      return first;
+    };
+  }
+
+  private static long scan(String document) throws IOException {
+    TokenScanner ts = new TokenScanner(new StringReader(document));
+    long tokens = 0;
+    while (ts.advance()) {
+      tokens++;
+    }
+    return tokens;
+  }
+
+  private static long lookUp(Dictionary dict, String[] words) {
+    long found = 0;
+    for (String word : words) {
+      if (dict.isWord(word)) {
+        found++;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,90 @@
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a SpellCheckProcessor with a sustained stream of chat-sized chunks cut from a synthetic
+ * Corpus document, and reports the throughput and the latency percentiles of the chunks.
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar StreamBenchmark [seconds] [consumerMicrosPerEvent]
+ * </pre>
+ *
+ * <p>The producer publishes as fast as the processor accepts chunks. A consumer delay makes the
+ * subscriber slow, to show that the processor then paces the producer instead of buffering.
+ */
+public class StreamBenchmark {
+  private static final int CHUNK_CHARS = 200;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args Optionally, the duration in seconds (default 10) and the time the consumer spends
+   *     on each event in microseconds (default 0)
+   * @throws Exception If the benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10;
+    long consumerNanos = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 0;
+
+    Corpus corpus = new Corpus(Long.getLong("bench.seed", 42), 100_000);
+    Dictionary dict = new Dictionary(new TokenScanner(new StringReader(corpus.dictionaryText())));
+    String document = corpus.document(200_000, 0.05, 0);
+    SpellChecker checker = new SpellChecker(new SwapCorrector(dict), dict);
+
+    SpellCheckProcessor processor = new SpellCheckProcessor(
+        checker, CorrectionPolicy.FIRST_SUGGESTION, ForkJoinPool.commonPool(), 256);
+    CountDownLatch done = new CountDownLatch(1);
+    processor.subscribe(new Flow.Subscriber<Misspelling>() {
+      private Flow.Subscription subscription;
+
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+      }
+
+      public void onNext(Misspelling item) {
+        if (consumerNanos > 0) {
+          LockSupport.parkNanos(consumerNanos);
+        }
+        subscription.request(1);
+      }
+
+      public void onError(Throwable throwable) {
+        throwable.printStackTrace();
+        done.countDown();
+      }
+
+      public void onComplete() {
+        done.countDown();
+      }
+    });
+
+    try (SubmissionPublisher<CharSequence> producer = new SubmissionPublisher<>()) {
+      producer.subscribe(processor);
+      long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+      int position = 0;
+      while (System.nanoTime() < end) {
+        int next = Math.min(position + CHUNK_CHARS, document.length());
+        producer.submit(document.substring(position, next));
+        position = next == document.length() ? 0 : next;
+      }
+    }
+    done.await();
+
+    LatencyHistogram latency = processor.getChunkLatency();
+    System.out.printf(Locale.ROOT, "chunks %d, chars %d, misspellings %d%n",
+        processor.getChunks(), processor.getChars(), processor.getMisspellings());
+    System.out.printf(Locale.ROOT, "throughput %.1f MB/s of chars, %.0f chunks/s%n",
+        processor.getCharsPerSecond() / 1e6,
+        processor.getCharsPerSecond() / CHUNK_CHARS);
+    System.out.printf(Locale.ROOT, "chunk latency us: p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+        latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(99) / 1e3,
+        latency.getValueAtPercentile(99.9) / 1e3, latency.getMax() / 1e3);
+  }
+}
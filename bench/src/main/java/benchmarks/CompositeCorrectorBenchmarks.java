@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * getCorrections of Levenshtein alone and behind a FileCorrector that knows half of the
+ * misspellings, in a CASCADE and a PARALLEL CompositeCorrector, scored per misspelling.
+ */
+public class CompositeCorrectorBenchmarks extends CorpusState {
+  private Operation none;
+  private Operation cascade;
+  private Operation parallel;
+
+  /**
+   * Builds the correctors and the misspellings.
+   *
+   * @throws Exception If the inputs cannot be built
+   */
+  @Setup
+  public void setUp() throws Exception {
+    none = operation("CompositeCorrector.none", 0);
+    cascade = operation("CompositeCorrector.cascade", 0);
+    parallel = operation("CompositeCorrector.parallel", 0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long none() throws Exception {
+    return none.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long cascade() throws Exception {
+    return cascade.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long parallel() throws Exception {
+    return parallel.run();
+  }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The settings shared by the benchmarks: the seed and dictionary size of the Corpus, which can be
+ * changed with -p seed=... and -p words=..., and the fork, warmup and measurement defaults. Scores
+ * are the average time per operation, and the Launcher adds the GC profiler for the bytes
+ * allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class CorpusState {
+  @Param("42")
+  public long seed;
+
+  @Param("100000")
+  public int words;
+
+  private Workloads workloads;
+
+  /**
+   * Returns an operation of the workloads of this state's corpus, generating the corpus on first
+   * use.
+   *
+   * @param name The name of the operation
+   * @param param The parameter of the operation, or 0 if it has none
+   * @return The operation
+   * @throws Exception If the inputs cannot be built
+   */
+  protected Operation operation(String name, int param) throws Exception {
+    if (workloads == null) {
+      workloads = Workloads.create(seed, words);
+    }
+    return workloads.get(name, param);
+  }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * getCorrections of SwapCorrector, FileCorrector and Levenshtein for misspellings of words of
+ * each length, scored per misspelling.
+ */
+public class CorrectorBenchmarks extends CorpusState {
+  @Param({"4", "7", "10", "13"})
+  public int length;
+
+  private Operation swap;
+  private Operation file;
+  private Operation levenshtein;
+
+  /**
+   * Builds the correctors and the misspellings.
+   *
+   * @throws Exception If the inputs cannot be built
+   */
+  @Setup
+  public void setUp() throws Exception {
+    swap = operation("SwapCorrector.getCorrections", length);
+    file = operation("FileCorrector.getCorrections", length);
+    levenshtein = operation("Levenshtein.getCorrections", length);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long swapCorrector() throws Exception {
+    return swap.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long fileCorrector() throws Exception {
+    return file.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long levenshtein() throws Exception {
+    return levenshtein.run();
+  }
+}
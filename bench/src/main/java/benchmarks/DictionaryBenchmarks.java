@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Scanning, building and looking up a Dictionary, and checking a whole document. Scanning and
+ * checking are scored per document word, lookups per query and building per Dictionary.
+ */
+public class DictionaryBenchmarks extends CorpusState {
+  private Operation scan;
+  private Operation build;
+  private Operation hit;
+  private Operation miss;
+  private Operation check;
+
+  /**
+   * Builds the inputs.
+   *
+   * @throws Exception If the inputs cannot be built
+   */
+  @Setup
+  public void setUp() throws Exception {
+    scan = operation("TokenScanner.scan", 0);
+    build = operation("Dictionary.build", 0);
+    hit = operation("Dictionary.isWord.hit", 0);
+    miss = operation("Dictionary.isWord.miss", 0);
+    check = operation("SpellChecker.checkDocument", 0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.DOCUMENT_WORDS)
+  public long tokenScannerScan() throws Exception {
+    return scan.run();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long dictionaryBuild() throws Exception {
+    return build.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long isWordHit() throws Exception {
+    return hit.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long isWordMiss() throws Exception {
+    return miss.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.DOCUMENT_WORDS)
+  public long checkDocument() throws Exception {
+    return check.run();
+  }
+}
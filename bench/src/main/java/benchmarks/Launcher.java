@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * The main class of the benchmarks jar: runs JMH with its usual command line, with the GC
+ * profiler always on, so that every run reports the bytes allocated per operation
+ * (gc.alloc.rate.norm) next to the time. Asking for help or a listing is passed to JMH's own
+ * main.
+ */
+public final class Launcher {
+  private Launcher() {
+  }
+
+  /**
+   * Runs the benchmarks the arguments select.
+   *
+   * @param args JMH command line options, such as a benchmark regex or -p length=7
+   * @throws Exception If JMH cannot run the benchmarks
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli;
+    try {
+      cli = new CommandLineOptions(args);
+    } catch (CommandLineOptionException e) {
+      System.err.println("Error parsing command line: " + e.getMessage());
+      System.exit(1);
+      return;
+    }
+    if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+        || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(cli);
+    if (!hasGcProfiler(cli)) {
+      options.addProfiler(GCProfiler.class);
+    }
+    try {
+      new Runner(options.build()).run();
+    } catch (NoBenchmarksException e) {
+      System.err.println("No matching benchmarks. Miss-spelled regexp?");
+      System.exit(1);
+    } catch (RunnerException e) {
+      System.err.print("ERROR: ");
+      e.printStackTrace(System.err);
+      System.exit(1);
+    }
+  }
+
+  /** Determines whether the command line already asks for the GC profiler, as -prof gc. */
+  private static boolean hasGcProfiler(CommandLineOptions cli) {
+    for (ProfilerConfig profiler : cli.getProfilers()) {
+      if (profiler.getKlass().equals("gc")
+          || profiler.getKlass().equals(GCProfiler.class.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,22 @@
+package benchmarks;
+
+/**
+ * One benchmarked call into the spell checker.
+ *
+ * <p>The spell checker lives in the default package, which code in a named package cannot refer
+ * to, and JMH requires benchmark classes to be in a named package. The benchmarks therefore get
+ * their work as Operations from SpellCheckWorkloads, in the default package. Each benchmark calls
+ * a single Operation from a field of its State, so the call is monomorphic within a fork and the
+ * JIT compiler inlines it.
+ */
+public interface Operation {
+
+  /**
+   * Runs the operation once.
+   *
+   * @return A value derived from the result, which the benchmark returns to JMH so that the work
+   *     cannot be optimized away
+   * @throws Exception If the operation fails, which aborts the benchmark
+   */
+  long run() throws Exception;
+}
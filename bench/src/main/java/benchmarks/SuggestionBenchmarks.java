@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Ordering the candidates of a distance-2 BK-tree search for misspelled 4-letter words, scored
+ * per misspelling: sorting them all alphabetically, sorting them all by distance and frequency,
+ * and picking the top 10 by distance and frequency with SuggestionRanker.
+ */
+public class SuggestionBenchmarks extends CorpusState {
+  private Operation sortAll;
+  private Operation sortAllRanked;
+  private Operation rankTop10;
+
+  /**
+   * Builds the candidates and the frequencies.
+   *
+   * @throws Exception If the inputs cannot be built
+   */
+  @Setup
+  public void setUp() throws Exception {
+    sortAll = operation("Suggestions.sortAll", 0);
+    sortAllRanked = operation("Suggestions.sortAllRanked", 0);
+    rankTop10 = operation("Suggestions.rankTop10", 0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long sortAll() throws Exception {
+    return sortAll.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long sortAllRanked() throws Exception {
+    return sortAllRanked.run();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Workloads.QUERIES)
+  public long rankTop10() throws Exception {
+    return rankTop10.run();
+  }
+}
@@ -0,0 +1,38 @@
+package benchmarks;
+
+/**
+ * The inputs and operations of the benchmarks, built from a seeded Corpus. Implemented by
+ * SpellCheckWorkloads in the default package; see Operation for why.
+ */
+public interface Workloads {
+  /** The number of queries each getCorrections and isWord operation makes. */
+  int QUERIES = 1024;
+
+  /** The number of words of the document that scanning and checking operations read. */
+  int DOCUMENT_WORDS = 100_000;
+
+  /**
+   * Returns a benchmarked operation, building its inputs if no earlier operation needed them.
+   *
+   * @param name The name of the operation, such as "Levenshtein.getCorrections"
+   * @param param The parameter of the operation, such as a word length, or 0 if it has none
+   * @return The operation
+   * @throws Exception If the inputs cannot be built
+   * @throws IllegalArgumentException If there is no such operation
+   */
+  Operation get(String name, int param) throws Exception;
+
+  /**
+   * Builds the workloads of a corpus.
+   *
+   * @param seed The seed of the Corpus
+   * @param dictionaryWords The number of words of the dictionary
+   * @return The workloads
+   * @throws ReflectiveOperationException If SpellCheckWorkloads is not on the class path
+   */
+  static Workloads create(long seed, int dictionaryWords) throws ReflectiveOperationException {
+    return (Workloads) Class.forName("SpellCheckWorkloads")
+        .getConstructor(long.class, int.class)
+        .newInstance(seed, dictionaryWords);
+  }
+}
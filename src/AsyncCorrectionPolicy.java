@@ -0,0 +1,58 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Decides how to correct a misspelled word, possibly later: for example by asking a remote user
+ * or service. StreamingSpellChecker keeps checking the rest of the document while decisions are
+ * pending, and writes each replacement once its decision completes.
+ *
+ * <p>Like a CorrectionPolicy, an AsyncCorrectionPolicy may be called from many threads at once.
+ */
+public interface AsyncCorrectionPolicy {
+
+  /**
+   * Starts choosing the text to write in place of a misspelled word.
+   *
+   * @param word The misspelled word
+   * @param suggestions The corrections proposed by the Corrector, sorted alphabetically, or best
+   *     first if the SpellChecker ranks them
+   * @return A stage that completes with the replacement text; completing with word leaves the
+   *     word unchanged. A StreamingSpellChecker fails the check if the stage does not complete
+   *     within its decision timeout.
+   */
+  CompletionStage<String> choose(String word, List<String> suggestions);
+
+  /**
+   * Adapts a CorrectionPolicy, deciding immediately in the calling thread.
+   *
+   * @param policy The policy to adapt
+   * @return An AsyncCorrectionPolicy whose decisions are already complete
+   * @throws IllegalArgumentException If the policy is null
+   */
+  static AsyncCorrectionPolicy of(CorrectionPolicy policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException();
+    }
+    return (word, suggestions) ->
+        CompletableFuture.completedFuture(policy.choose(word, suggestions));
+  }
+
+  /**
+   * Adapts a slow CorrectionPolicy, such as one that asks a service, by running each decision on
+   * the argued executor.
+   *
+   * @param policy The policy to adapt
+   * @param executor Runs the decisions
+   * @return An AsyncCorrectionPolicy whose decisions complete on the executor
+   * @throws IllegalArgumentException If an argument is null
+   */
+  static AsyncCorrectionPolicy async(CorrectionPolicy policy, Executor executor) {
+    if (policy == null || executor == null) {
+      throw new IllegalArgumentException();
+    }
+    return (word, suggestions) ->
+        CompletableFuture.supplyAsync(() -> policy.choose(word, suggestions), executor);
+  }
+}
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A Corrector that suggests every dictionary word within a given edit distance, found with a
+ * BK-tree.
+ *
+ * <p>Each word of the dictionary is a node of the tree, and each child hangs off its parent by the
+ * edit distance between the two words. Because edit distance is a metric, a word within distance
+ * k of the query q can only be below the child edge e of a node n if |e - d(q, n)| is at most k,
+ * so most of the tree is never visited. Distances are computed with a bound, so a comparison stops
+ * as soon as it cannot lead anywhere useful.
+ *
+ * <p>With the Damerau option, a transposition of two adjacent letters counts as a single edit, so
+ * "thsi" is one edit from "this", as in SwapCorrector.
+ *
+ * <p>If the Dictionary was made by withOverlay, words added to it go into a second tree as they
+ * arrive, and words removed from it are dropped from the results.
+ */
+public class BKTreeCorrector extends Corrector {
+  private final Dictionary dict;
+  private final int maxDistance;
+  private final boolean damerau;
+  private final WordIndex<Tree> trees;
+
+  /**
+   * Constructs a BKTreeCorrector using plain Levenshtein distance.
+   *
+   * @param dict The reference dictionary from which to draw corrections
+   * @param maxDistance The largest edit distance of a suggested correction
+   * @throws IllegalArgumentException If the argued Dictionary is null or maxDistance is less than
+   *     one
+   */
+  public BKTreeCorrector(Dictionary dict, int maxDistance) {
+    this(dict, maxDistance, false);
+  }
+
+  /**
+   * Constructs a BKTreeCorrector and builds its tree.
+   *
+   * @param dict The reference dictionary from which to draw corrections
+   * @param maxDistance The largest edit distance of a suggested correction
+   * @param damerau Whether a transposition of adjacent characters counts as one edit
+   * @throws IllegalArgumentException If the argued Dictionary is null or maxDistance is less than
+   *     one
+   */
+  public BKTreeCorrector(Dictionary dict, int maxDistance, boolean damerau) {
+    if (dict == null || maxDistance < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.dict = dict;
+    this.maxDistance = maxDistance;
+    this.damerau = damerau;
+    this.trees = new WordIndex<>(dict, Tree::new);
+  }
+
+  /**
+   * Suggests as corrections every word in the Dictionary whose edit distance from the input word
+   * is between one and the maximum distance of this Corrector.
+   *
+   * <p>The corrections should match the case of the input; the matchCase method is helpful here.
+   *
+   * @param wrong The misspelled word
+   * @return A (potentially empty) set of proposed corrections
+   * @throws IllegalArgumentException If the input is not a valid word (i.e. not composed of only
+   *     letters and/or apostrophes)
+   */
+  public Set<String> getCorrections(String wrong) {
+    if (wrong == null || !TokenScanner.isWord(wrong)) {
+      throw new IllegalArgumentException();
+    }
+    String lower = HashWordSet.lowerCase(wrong);
+    EditDistance distance = new EditDistance();
+    Set<String> corrections = new TreeSet<>();
+    for (Tree tree : trees.indexes()) {
+      tree.collect(lower, distance, corrections);
+    }
+    if (trees.isOverlay()) {
+      corrections.removeIf(word -> !dict.isWord(word));
+    }
+    return matchCase(wrong, corrections);
+  }
+
+  /** The BK-tree of one set of words. */
+  private final class Tree {
+    private final String[] words;
+
+    // Node i holds words[i]. Children are linked through firstChild and nextSibling, and
+    // edgeDistance[i] is the distance between words[i] and its parent's word.
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] edgeDistance;
+    private final int[] maxChildDistance;
+
+    Tree(WordSet set) {
+      words = new String[set.size()];
+      int numWords = 0;
+      int longest = 0;
+      for (String word : set) {
+        words[numWords++] = word;
+        longest = Math.max(longest, word.length());
+      }
+      firstChild = new int[numWords];
+      nextSibling = new int[numWords];
+      edgeDistance = new int[numWords];
+      maxChildDistance = new int[numWords];
+      Arrays.fill(firstChild, -1);
+      Arrays.fill(nextSibling, -1);
+
+      EditDistance distance = new EditDistance();
+      for (int id = 1; id < numWords; id++) {
+        int node = 0;
+        while (true) {
+          int d = distance(distance, words[id], words[node], longest);
+          int child = firstChild[node];
+          while (child >= 0 && edgeDistance[child] != d) {
+            child = nextSibling[child];
+          }
+          if (child < 0) {
+            edgeDistance[id] = d;
+            nextSibling[id] = firstChild[node];
+            firstChild[node] = id;
+            maxChildDistance[node] = Math.max(maxChildDistance[node], d);
+            break;
+          }
+          node = child;
+        }
+      }
+    }
+
+    /** Adds to corrections every word of this tree within the maximum distance of lower. */
+    void collect(String lower, EditDistance distance, Set<String> corrections) {
+      if (words.length == 0) {
+        return;
+      }
+      int[] stack = new int[64];
+      int top = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+        int node = stack[--top];
+        // Children at distance e are only worth visiting if |e - d| <= maxDistance, so there is no
+        // need to know d exactly once it exceeds the largest child edge plus maxDistance.
+        int bound = maxChildDistance[node] + maxDistance;
+        int d = distance(distance, lower, words[node], bound);
+        if (d >= 1 && d <= maxDistance) {
+          corrections.add(words[node]);
+        }
+        if (d > bound) {
+          continue;
+        }
+        for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+          if (Math.abs(edgeDistance[child] - d) <= maxDistance) {
+            if (top == stack.length) {
+              stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = child;
+          }
+        }
+      }
+    }
+  }
+
+  private int distance(EditDistance distance, String a, String b, int bound) {
+    return damerau ? distance.damerau(a, b, bound) : distance.levenshtein(a, b, bound);
+  }
+}
@@ -0,0 +1,468 @@
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Spell checks many documents in parallel without user interaction.
+ *
+ * <p>Every document is checked by the same SpellChecker, and therefore the same Dictionary and
+ * Corrector, on the threads of the argued Executor. A Dictionary is never modified after it is
+ * built, and the correctors in this package keep no state between calls, so they can be shared.
+ *
+ * <p>Each document yields a DocumentResult: the misspellings found, with their offsets and
+ * suggestions, and optionally a corrected copy of the document written to an output directory.
+ * Corrected copies keep their paths relative to the deepest directory that holds all the
+ * documents, so documents of the same name from different directories do not overwrite each
+ * other. A failure to read or write one document is recorded in its result and does not stop
+ * the batch.
+ *
+ * <p>By default the BatchReport keeps every misspelling of every document. For large batches it
+ * can keep only their number, while the ProgressListener still sees each document's
+ * misspellings as it completes.
+ */
+public class BatchSpellChecker {
+  private final SpellChecker checker;
+  private final Executor executor;
+  private final Charset charset;
+  private final boolean keepMisspellings;
+
+  /**
+   * Constructs a BatchSpellChecker that runs on the common fork/join pool and reads and writes
+   * UTF-8.
+   *
+   * @param c A Corrector
+   * @param d A Dictionary
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public BatchSpellChecker(Corrector c, Dictionary d) {
+    this(c, d, ForkJoinPool.commonPool(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Constructs a BatchSpellChecker.
+   *
+   * @param c A Corrector
+   * @param d A Dictionary
+   * @param executor Runs the checks of individual documents
+   * @param charset The encoding of the documents and of the corrected output
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public BatchSpellChecker(Corrector c, Dictionary d, Executor executor, Charset charset) {
+    this(c == null || d == null ? null : new SpellChecker(c, d), executor, charset, true);
+  }
+
+  /**
+   * Constructs a BatchSpellChecker over a configured SpellChecker, such as one with a listener or
+   * a ranker. The SpellChecker checks documents concurrently, so its listener must be thread
+   * safe.
+   *
+   * @param checker Checks every document
+   * @param executor Runs the checks of individual documents
+   * @param charset The encoding of the documents and of the corrected output
+   * @param keepMisspellings Whether the BatchReport keeps the misspellings of each document, or
+   *     only their number
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public BatchSpellChecker(SpellChecker checker, Executor executor, Charset charset,
+      boolean keepMisspellings) {
+    if (checker == null || executor == null || charset == null) {
+      throw new IllegalArgumentException();
+    }
+    this.checker = checker;
+    this.executor = executor;
+    this.charset = charset;
+    this.keepMisspellings = keepMisspellings;
+  }
+
+  /**
+   * Receives progress notifications from a batch. Calls are serialized, so implementations need
+   * not be thread safe.
+   */
+  public interface ProgressListener {
+
+    /**
+     * Called each time a document has been checked.
+     *
+     * @param result The result of the document
+     * @param completed The number of documents checked so far
+     * @param total The number of documents in the batch
+     */
+    void documentChecked(DocumentResult result, int completed, int total);
+  }
+
+  /**
+   * Checks every argued document.
+   *
+   * @param documents The documents to check
+   * @param outputDirectory If not null, a corrected copy of each document is written here under
+   *     its path relative to the deepest directory that holds all the documents, which for
+   *     documents of a single directory is their file name
+   * @param policy Decides the replacement for each misspelled word
+   * @param listener Notified as documents complete, or null
+   * @return A report of the whole batch, with results in the order of the argued documents
+   * @throws InterruptedException If interrupted while waiting for the batch to finish
+   * @throws IllegalArgumentException If documents or policy is null, or if an output directory
+   *     is given and a document is listed twice or its corrected copy would overwrite a document
+   */
+  public BatchReport checkAll(
+      List<Path> documents,
+      Path outputDirectory,
+      CorrectionPolicy policy,
+      ProgressListener listener)
+      throws InterruptedException {
+    if (documents == null || policy == null) {
+      throw new IllegalArgumentException();
+    }
+    int total = documents.size();
+    List<Path> outputs = outputPaths(documents, outputDirectory);
+    Object progressLock = new Object();
+    int[] completed = new int[1];
+    long start = System.nanoTime();
+
+    List<CompletableFuture<DocumentResult>> futures = new ArrayList<>(total);
+    for (int i = 0; i < total; i++) {
+      Path document = documents.get(i);
+      Path output = outputs.get(i);
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                DocumentResult result = check(document, output, policy);
+                synchronized (progressLock) {
+                  completed[0]++;
+                  if (listener != null) {
+                    listener.documentChecked(result, completed[0], total);
+                  }
+                }
+                return keepMisspellings ? result : result.withoutMisspellings();
+              },
+              executor));
+    }
+
+    List<DocumentResult> results = new ArrayList<>(total);
+    for (CompletableFuture<DocumentResult> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        // check() records its own failures, so only a bug or a listener can get here.
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    return new BatchReport(results, System.nanoTime() - start);
+  }
+
+  /**
+   * Returns where the corrected copy of each document goes: its path relative to the deepest
+   * directory that holds all the documents, resolved against the output directory.
+   *
+   * @return The output of each document, or nulls if there is no output directory
+   * @throws IllegalArgumentException If a document is listed twice or an output is a document
+   */
+  private static List<Path> outputPaths(List<Path> documents, Path outputDirectory) {
+    List<Path> outputs = new ArrayList<>(documents.size());
+    if (outputDirectory == null) {
+      for (int i = 0; i < documents.size(); i++) {
+        outputs.add(null);
+      }
+      return outputs;
+    }
+    List<Path> absolute = new ArrayList<>(documents.size());
+    Set<Path> seen = new HashSet<>();
+    Path common = null;
+    for (Path document : documents) {
+      Path path = document.toAbsolutePath().normalize();
+      if (!seen.add(path)) {
+        throw new IllegalArgumentException("Document listed twice: " + document);
+      }
+      absolute.add(path);
+      if (common == null) {
+        common = path.getParent();
+      }
+      while (common != null && !path.startsWith(common)) {
+        common = common.getParent();
+      }
+    }
+    for (Path path : absolute) {
+      // Documents on different roots share no directory, so all but the root is kept.
+      Path relative = common != null ? common.relativize(path) : path.getRoot().relativize(path);
+      Path output = outputDirectory.resolve(relative.toString());
+      if (seen.contains(output.toAbsolutePath().normalize())) {
+        throw new IllegalArgumentException("Output would overwrite a document: " + output);
+      }
+      outputs.add(output);
+    }
+    return outputs;
+  }
+
+  /** Checks one document, recording rather than throwing any I/O failure. */
+  private DocumentResult check(Path document, Path output, CorrectionPolicy policy) {
+    long start = System.nanoTime();
+    long chars = 0;
+    try (Reader in = Files.newBufferedReader(document, charset);
+        Writer out = output == null ? null : openOutput(output, document)) {
+      CountingReader counting = new CountingReader(in);
+      List<Misspelling> misspellings = checker.checkDocument(counting, out, policy);
+      chars = counting.count;
+      return new DocumentResult(document, output, misspellings, misspellings.size(), chars,
+          System.nanoTime() - start, null);
+    } catch (IOException | RuntimeException e) {
+      return new DocumentResult(document, output, Collections.<Misspelling>emptyList(), 0, chars,
+          System.nanoTime() - start, e);
+    }
+  }
+
+  /**
+   * Opens the corrected copy of a document, creating its directory if need be. Links can make an
+   * output that outputPaths accepted the document itself, which opening would empty before it is
+   * read, so that is checked again against the files.
+   */
+  private Writer openOutput(Path output, Path document) throws IOException {
+    if (output.getParent() != null) {
+      Files.createDirectories(output.getParent());
+    }
+    if (Files.exists(output) && Files.isSameFile(output, document)) {
+      throw new IOException("Output would overwrite the document: " + output);
+    }
+    return Files.newBufferedWriter(output, charset);
+  }
+
+  /** The outcome of checking one document. */
+  public static class DocumentResult {
+    private final Path document;
+    private final Path output;
+    private final List<Misspelling> misspellings;
+    private final int numMisspellings;
+    private final long chars;
+    private final long nanos;
+    private final Exception error;
+
+    DocumentResult(Path document, Path output, List<Misspelling> misspellings,
+        int numMisspellings, long chars, long nanos, Exception error) {
+      this.document = document;
+      this.output = output;
+      this.misspellings = Collections.unmodifiableList(misspellings);
+      this.numMisspellings = numMisspellings;
+      this.chars = chars;
+      this.nanos = nanos;
+      this.error = error;
+    }
+
+    /** Returns a copy of this result that keeps only the number of misspellings. */
+    DocumentResult withoutMisspellings() {
+      return new DocumentResult(document, output, Collections.<Misspelling>emptyList(),
+          numMisspellings, chars, nanos, error);
+    }
+
+    /**
+     * Returns the document that was checked.
+     *
+     * @return The path of the document
+     */
+    public Path getDocument() {
+      return document;
+    }
+
+    /**
+     * Returns where the corrected copy was written.
+     *
+     * @return The path of the corrected copy, or null if none was requested
+     */
+    public Path getOutput() {
+      return output;
+    }
+
+    /**
+     * Returns the misspellings found, in document order.
+     *
+     * @return An unmodifiable list of misspellings; empty if the document failed, or if the
+     *     BatchSpellChecker does not keep misspellings and this result is from its BatchReport
+     */
+    public List<Misspelling> getMisspellings() {
+      return misspellings;
+    }
+
+    /**
+     * Returns the number of misspellings found, whether or not they were kept.
+     *
+     * @return The number of misspellings; 0 if the document failed
+     */
+    public int getNumMisspellings() {
+      return numMisspellings;
+    }
+
+    /**
+     * Returns the number of chars read from the document.
+     *
+     * @return The length of the document
+     */
+    public long getChars() {
+      return chars;
+    }
+
+    /**
+     * Returns how long the document took to check.
+     *
+     * @return The elapsed time in nanoseconds
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * Returns the exception that stopped the check of this document.
+     *
+     * @return The failure, or null if the document was checked successfully
+     */
+    public Exception getError() {
+      return error;
+    }
+  }
+
+  /** The outcome of a whole batch, with throughput and latency figures. */
+  public static class BatchReport {
+    private final List<DocumentResult> results;
+    private final long elapsedNanos;
+    private final long[] sortedLatencies;
+
+    BatchReport(List<DocumentResult> results, long elapsedNanos) {
+      this.results = Collections.unmodifiableList(results);
+      this.elapsedNanos = elapsedNanos;
+      sortedLatencies = new long[results.size()];
+      for (int i = 0; i < sortedLatencies.length; i++) {
+        sortedLatencies[i] = results.get(i).getNanos();
+      }
+      Arrays.sort(sortedLatencies);
+    }
+
+    /**
+     * Returns the result of each document, in the order the documents were given.
+     *
+     * @return An unmodifiable list of results
+     */
+    public List<DocumentResult> getResults() {
+      return results;
+    }
+
+    /**
+     * Returns the wall-clock time of the whole batch.
+     *
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of documents that could not be checked.
+     *
+     * @return The number of failed documents
+     */
+    public int getFailures() {
+      int failures = 0;
+      for (DocumentResult result : results) {
+        if (result.getError() != null) {
+          failures++;
+        }
+      }
+      return failures;
+    }
+
+    /**
+     * Returns the number of documents checked per second of wall-clock time.
+     *
+     * @return The document throughput
+     */
+    public double getDocumentsPerSecond() {
+      return results.size() / seconds();
+    }
+
+    /**
+     * Returns the number of chars checked per second of wall-clock time.
+     *
+     * @return The character throughput
+     */
+    public double getCharsPerSecond() {
+      long chars = 0;
+      for (DocumentResult result : results) {
+        chars += result.getChars();
+      }
+      return chars / seconds();
+    }
+
+    /**
+     * Returns a percentile of the per-document latency.
+     *
+     * @param percentile A percentile between 0 and 100
+     * @return The latency in nanoseconds below which the argued percentage of documents fall, or
+     *     0 if the batch was empty
+     * @throws IllegalArgumentException If the percentile is out of range
+     */
+    public long getLatencyPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException();
+      }
+      if (sortedLatencies.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(rank, 0)];
+    }
+
+    private double seconds() {
+      return Math.max(elapsedNanos, 1) / 1e9;
+    }
+
+    public String toString() {
+      return String.format(
+          "%d documents (%d failed) in %.3f s: %.1f docs/s, %.0f chars/s; "
+              + "latency p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+          results.size(),
+          getFailures(),
+          seconds(),
+          getDocumentsPerSecond(),
+          getCharsPerSecond(),
+          getLatencyPercentile(50) / 1e6,
+          getLatencyPercentile(99) / 1e6,
+          getLatencyPercentile(100) / 1e6);
+    }
+  }
+
+  /** Counts the chars passing through a Reader. */
+  private static class CountingReader extends FilterReader {
+    private long count;
+
+    CountingReader(Reader in) {
+      super(in);
+    }
+
+    public int read() throws IOException {
+      int c = super.read();
+      if (c >= 0) {
+        count++;
+      }
+      return c;
+    }
+
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+  }
+}
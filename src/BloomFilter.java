@@ -0,0 +1,181 @@
+import java.nio.LongBuffer;
+
+/**
+ * A Bloom filter of words, used to reject most non-words without a dictionary lookup.
+ *
+ * <p>A word is added by setting numHashes bits of a bit array chosen by hashing it. A word whose
+ * bits are not all set was certainly never added; a word whose bits are all set probably was, but
+ * may be a false positive. Correctors that generate many candidate words, almost all of which are
+ * not words, can therefore discard most of them with a few bit tests.
+ *
+ * <p>Like a WordSet, a BloomFilter is case insensitive: each character is lowercased as it is
+ * hashed. The bits are kept in a LongBuffer so that a filter can be used in place from a mapped
+ * dictionary snapshot. A filter may be read from many threads at once once it is filled.
+ */
+public class BloomFilter {
+  private final LongBuffer bits;
+  private final long numBits;
+  private final int numHashes;
+
+  /**
+   * Constructs an empty BloomFilter with the argued memory budget.
+   *
+   * @param numBits The size of the bit array, rounded up to a multiple of 64
+   * @param numHashes The number of bits set for each word
+   * @throws IllegalArgumentException If numBits or numHashes is less than one, or numBits is too
+   *     large
+   */
+  public BloomFilter(long numBits, int numHashes) {
+    if (numBits < 1 || numBits > 64L * Integer.MAX_VALUE || numHashes < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.bits = LongBuffer.wrap(new long[(int) ((numBits + 63) >>> 6)]);
+    this.numBits = bits.capacity() * 64L;
+    this.numHashes = numHashes;
+  }
+
+  /** Constructs a BloomFilter over bits read from a dictionary snapshot. */
+  BloomFilter(LongBuffer bits, int numHashes) {
+    this.bits = bits;
+    this.numBits = bits.capacity() * 64L;
+    this.numHashes = numHashes;
+  }
+
+  /**
+   * Constructs an empty BloomFilter sized so that, once the argued number of words has been
+   * added, the chance of a false positive is about the argued rate.
+   *
+   * @param expectedWords The number of words that will be added
+   * @param falsePositiveRate The desired false-positive rate, between 0 and 1 exclusive
+   * @return An empty BloomFilter
+   * @throws IllegalArgumentException If expectedWords is negative or the rate is out of range
+   */
+  public static BloomFilter forFalsePositiveRate(int expectedWords, double falsePositiveRate) {
+    if (expectedWords < 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException();
+    }
+    // m = -n ln p / (ln 2)^2 bits minimise the rate for n words.
+    long n = Math.max(expectedWords, 1);
+    double ln2 = Math.log(2);
+    long numBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+    return new BloomFilter(numBits, optimalNumHashes(n, numBits));
+  }
+
+  /**
+   * Returns the number of hashes that minimises the false-positive rate of a filter of the argued
+   * size holding the argued number of words.
+   *
+   * @param expectedWords The number of words that will be added
+   * @param numBits The size of the bit array
+   * @return The best number of hashes, at least one
+   */
+  public static int optimalNumHashes(long expectedWords, long numBits) {
+    double bitsPerWord = (double) numBits / Math.max(expectedWords, 1);
+    return (int) Math.max(1, Math.round(bitsPerWord * Math.log(2)));
+  }
+
+  /**
+   * Adds a word to this filter. Filters read from a snapshot cannot be modified.
+   *
+   * @param word The word to add
+   * @throws java.nio.ReadOnlyBufferException If this filter was read from a snapshot
+   */
+  public void add(CharSequence word) {
+    long h = hash(word);
+    long step = Long.rotateLeft(h, 32) | 1;
+    for (int i = 0; i < numHashes; i++) {
+      long bit = ((h + i * step) >>> 1) % numBits;
+      int index = (int) (bit >>> 6);
+      bits.put(index, bits.get(index) | (1L << bit));
+    }
+  }
+
+  /**
+   * Tests whether a word might have been added to this filter.
+   *
+   * @param word The word to test
+   * @return False if the word was certainly not added, true if it probably was
+   */
+  public boolean mightContain(CharSequence word) {
+    return mightContain(hash(word));
+  }
+
+  /**
+   * Tests whether the word in a region of a char array might have been added to this filter.
+   *
+   * @param chars The array holding the word
+   * @param offset Index of the first character of the word
+   * @param length Number of characters in the word
+   * @return False if the word was certainly not added, true if it probably was
+   */
+  public boolean mightContain(char[] chars, int offset, int length) {
+    return mightContain(hash(chars, offset, length));
+  }
+
+  /** Tests the bits chosen by the argued hash. */
+  private boolean mightContain(long h) {
+    long step = Long.rotateLeft(h, 32) | 1;
+    for (int i = 0; i < numHashes; i++) {
+      long bit = ((h + i * step) >>> 1) % numBits;
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the size of the bit array.
+   *
+   * @return The number of bits, a multiple of 64
+   */
+  public long getNumBits() {
+    return numBits;
+  }
+
+  /**
+   * Returns the number of bits set for each word.
+   *
+   * @return The number of hashes
+   */
+  public int getNumHashes() {
+    return numHashes;
+  }
+
+  /** Returns the bits of this filter, for writing to a snapshot. */
+  LongBuffer bits() {
+    return bits.duplicate();
+  }
+
+  /**
+   * Computes a 64-bit case-insensitive hash of a word: FNV-1a over the lowercase characters,
+   * followed by the MurmurHash3 finalizer so that both halves are well mixed.
+   */
+  private static long hash(CharSequence word) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < word.length(); i++) {
+      h ^= Character.toLowerCase(word.charAt(i));
+      h *= 0x100000001B3L;
+    }
+    return mix(h);
+  }
+
+  /** Computes the same hash as hash(CharSequence) over a region of a char array. */
+  private static long hash(char[] chars, int offset, int length) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = offset; i < offset + length; i++) {
+      h ^= Character.toLowerCase(chars[i]);
+      h *= 0x100000001B3L;
+    }
+    return mix(h);
+  }
+
+  /** The MurmurHash3 finalizer. */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+}
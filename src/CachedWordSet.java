@@ -0,0 +1,149 @@
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A WordSet that remembers the answers of recent lookups in another WordSet.
+ *
+ * <p>Word frequencies follow Zipf's law, so a few words account for most of the lookups made while
+ * checking a document. This cache is a small direct-mapped table indexed by the case-insensitive
+ * hash of a word. It remembers found words and, separately, words that were not found, so that
+ * repeated names and identifiers are answered as quickly as common words. A lookup that hits the
+ * cache allocates nothing; a miss stores the lowercase word, replacing whatever word had the same
+ * slot.
+ *
+ * <p>Found and missing words are kept in two separate arrays of Strings rather than as key/answer
+ * pairs, so a slot is always read and written as a single reference and concurrent lookups can
+ * never see a key paired with the wrong answer. The wrapped WordSet must not change while it is
+ * cached.
+ */
+public class CachedWordSet implements WordSet {
+  /** The number of slots used by CachedWordSet(WordSet). */
+  public static final int DEFAULT_SLOTS = 4096;
+
+  private final WordSet words;
+  private final String[] hitKeys;
+  private final String[] missKeys;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Constructs a CachedWordSet with DEFAULT_SLOTS slots.
+   *
+   * @param words The WordSet whose lookups are cached
+   * @throws IllegalArgumentException If the argued WordSet is null
+   */
+  public CachedWordSet(WordSet words) {
+    this(words, DEFAULT_SLOTS);
+  }
+
+  /**
+   * Constructs a CachedWordSet.
+   *
+   * @param words The WordSet whose lookups are cached
+   * @param slots The number of slots, rounded up to a power of two
+   * @throws IllegalArgumentException If the argued WordSet is null or slots is less than one
+   */
+  public CachedWordSet(WordSet words, int slots) {
+    if (words == null || slots < 1 || slots > 1 << 30) {
+      throw new IllegalArgumentException();
+    }
+    this.words = words;
+    int capacity = slots == 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+    hitKeys = new String[capacity];
+    missKeys = new String[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * Always throws, because the cache would not see the change.
+   *
+   * @throws UnsupportedOperationException Always
+   */
+  public boolean add(CharSequence word) {
+    throw new UnsupportedOperationException();
+  }
+
+  public boolean contains(CharSequence word) {
+    int i = HashWordSet.hash(word) & mask;
+    String key = hitKeys[i];
+    if (key != null && HashWordSet.equalsIgnoreCase(key, word)) {
+      hits.increment();
+      return true;
+    }
+    key = missKeys[i];
+    if (key != null && HashWordSet.equalsIgnoreCase(key, word)) {
+      hits.increment();
+      return false;
+    }
+    misses.increment();
+    boolean found = words.contains(word);
+    String lower = HashWordSet.lowerCase(word);
+    if (found) {
+      hitKeys[i] = lower;
+    } else {
+      missKeys[i] = lower;
+    }
+    return found;
+  }
+
+  public boolean contains(char[] chars, int offset, int length) {
+    int i = HashWordSet.hash(chars, offset, length) & mask;
+    String key = hitKeys[i];
+    if (key != null && HashWordSet.equalsIgnoreCase(key, chars, offset, length)) {
+      hits.increment();
+      return true;
+    }
+    key = missKeys[i];
+    if (key != null && HashWordSet.equalsIgnoreCase(key, chars, offset, length)) {
+      hits.increment();
+      return false;
+    }
+    misses.increment();
+    boolean found = words.contains(chars, offset, length);
+    String lower = HashWordSet.lowerCase(new CharSlice(chars, offset, length));
+    if (found) {
+      hitKeys[i] = lower;
+    } else {
+      missKeys[i] = lower;
+    }
+    return found;
+  }
+
+  public int size() {
+    return words.size();
+  }
+
+  public Iterator<String> iterator() {
+    return words.iterator();
+  }
+
+  /**
+   * Returns the number of lookups answered from the cache.
+   *
+   * @return The number of cache hits
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups that went to the wrapped WordSet.
+   *
+   * @return The number of cache misses
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the fraction of lookups answered from the cache.
+   *
+   * @return The hit rate, or 0 if there have been no lookups
+   */
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0 : (double) h / total;
+  }
+}
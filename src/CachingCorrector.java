@@ -0,0 +1,179 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Corrector that remembers the corrections of another Corrector.
+ *
+ * <p>Real documents repeat the same misspellings many times, and every correction comes back in
+ * the case of its misspelling only through matchCase. This Corrector therefore asks the wrapped
+ * Corrector once per lowercased word, keeps the lowercase corrections, and reapplies the case of
+ * each misspelling on the way out. A lowercase misspelling gets the cached set itself, which is
+ * unmodifiable.
+ *
+ * <p>The cache holds at most a fixed number of words and evicts the least recently used. It is
+ * split into stripes, each an access-ordered LinkedHashMap with its own lock, so that threads
+ * checking different words rarely contend. The wrapped Corrector is called outside any lock, so
+ * two threads missing on the same word at once may both compute it.
+ */
+public class CachingCorrector extends Corrector {
+  /** The number of words cached by CachingCorrector(Corrector). */
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+  private static final int STRIPES = 16;
+
+  private final Corrector corrector;
+  private final Stripe[] stripes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructs a CachingCorrector holding up to DEFAULT_MAX_ENTRIES words.
+   *
+   * @param c The Corrector whose corrections are cached
+   * @throws IllegalArgumentException If the argued Corrector is null
+   */
+  public CachingCorrector(Corrector c) {
+    this(c, DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Constructs a CachingCorrector.
+   *
+   * @param c The Corrector whose corrections are cached
+   * @param maxEntries The largest number of words whose corrections are kept
+   * @throws IllegalArgumentException If the argued Corrector is null or maxEntries is less than
+   *     one
+   */
+  public CachingCorrector(Corrector c, int maxEntries) {
+    if (c == null || maxEntries < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.corrector = c;
+    int numStripes = Math.min(STRIPES, Integer.highestOneBit(maxEntries));
+    stripes = new Stripe[numStripes];
+    for (int i = 0; i < numStripes; i++) {
+      // Spread the remainder so that the stripes add up to exactly maxEntries.
+      stripes[i] = new Stripe(maxEntries / numStripes + (i < maxEntries % numStripes ? 1 : 0));
+    }
+  }
+
+  /**
+   * Returns the corrections the wrapped Corrector proposes for the argued word, from the cache
+   * when possible.
+   *
+   * @param wrong The misspelled word
+   * @return A (potentially empty) set of proposed corrections
+   * @throws IllegalArgumentException If the input is not a valid word (i.e. not composed of only
+   *     letters and/or apostrophes)
+   */
+  public Set<String> getCorrections(String wrong) {
+    if (wrong == null || !TokenScanner.isWord(wrong)) {
+      throw new IllegalArgumentException();
+    }
+    String lower = HashWordSet.lowerCase(wrong);
+    Stripe stripe = stripes[(HashWordSet.hash(lower) >>> 16) & (stripes.length - 1)];
+    Set<String> corrections;
+    synchronized (stripe) {
+      corrections = stripe.get(lower);
+    }
+    if (corrections != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      corrections = Collections.unmodifiableSet(corrector.getCorrections(lower));
+      synchronized (stripe) {
+        stripe.put(lower, corrections);
+      }
+    }
+    if (wrong.length() > 0 && Character.isUpperCase(wrong.charAt(0))) {
+      return matchCase(wrong, corrections);
+    }
+    return corrections;
+  }
+
+  /**
+   * Returns the number of calls answered from the cache.
+   *
+   * @return The number of cache hits
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of calls that went to the wrapped Corrector.
+   *
+   * @return The number of cache misses
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of words dropped from the cache to make room for others.
+   *
+   * @return The number of evictions
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the fraction of calls answered from the cache.
+   *
+   * @return The hit rate, or 0 if there have been no calls
+   */
+  public double getHitRate() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  /**
+   * Returns the number of words currently cached.
+   *
+   * @return The size of the cache
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  /** Empties the cache, for instance after the wrapped Corrector's data has changed. */
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  /** One independently locked part of the cache, in least recently used order. */
+  private class Stripe extends LinkedHashMap<String, Set<String>> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxEntries;
+
+    Stripe(int maxEntries) {
+      super(16, 0.75f, true);
+      this.maxEntries = maxEntries;
+    }
+
+    protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+      if (size() > maxEntries) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * A reusable, mutable CharSequence view over a region of a char array.
+ *
+ * <p>CharSlice lets scanners and correctors hand out token text without copying it into a new
+ * String. The view is only valid until the owner overwrites the underlying array, so callers that
+ * need to keep the text must call toString().
+ */
+final class CharSlice implements CharSequence {
+  private char[] chars;
+  private int offset;
+  private int length;
+
+  /** Constructs an empty CharSlice. */
+  CharSlice() {
+    this(new char[0], 0, 0);
+  }
+
+  /**
+   * Constructs a CharSlice over the argued region.
+   *
+   * @param chars The backing array
+   * @param offset Index of the first character of the view
+   * @param length Number of characters in the view
+   */
+  CharSlice(char[] chars, int offset, int length) {
+    set(chars, offset, length);
+  }
+
+  /**
+   * Points this view at a new region, discarding the old one.
+   *
+   * @param chars The backing array
+   * @param offset Index of the first character of the view
+   * @param length Number of characters in the view
+   * @return This CharSlice
+   */
+  CharSlice set(char[] chars, int offset, int length) {
+    this.chars = chars;
+    this.offset = offset;
+    this.length = length;
+    return this;
+  }
+
+  /**
+   * Returns the backing array of this view. The view starts at offset(), not at index zero.
+   *
+   * @return The backing array
+   */
+  char[] array() {
+    return chars;
+  }
+
+  /**
+   * Returns the index in array() of the first character of this view.
+   *
+   * @return The offset of this view
+   */
+  int offset() {
+    return offset;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException();
+    }
+    return chars[offset + index];
+  }
+
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException();
+    }
+    return new CharSlice(chars, offset + start, end - start);
+  }
+
+  public String toString() {
+    return new String(chars, offset, length);
+  }
+}
@@ -0,0 +1,294 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Corrector that asks several other Correctors and merges their answers, so that one
+ * SpellChecker can use, say, a FileCorrector of known typos together with a Levenshtein search.
+ *
+ * <p>Children are added with with, and their order is their priority. The merged corrections list
+ * those of the first child first, then the new ones of the second, and so on; a correction
+ * proposed by several children, in any case, is kept once, as the highest priority child spelled
+ * it. The set returned iterates in that order.
+ *
+ * <p>In PARALLEL mode every child is asked at once and all their answers are merged. In CASCADE
+ * mode the children are asked one after another until one proposes something, and only that
+ * answer is returned, so that cheap exact lookups go first and an expensive edit-distance search
+ * only runs when they miss.
+ *
+ * <p>A child may be given a latency budget. It then runs on the executor, and if it has not
+ * answered within its budget of being started, its answer is treated as empty, so a slow
+ * Corrector cannot stall a document. The child is interrupted, but the Correctors of this package
+ * do not check for interrupts, so an overrunning child carries on in the background until it
+ * finishes, holding its thread. If the executor rejects a child, for instance because all its
+ * threads are busy with overrunning children, the child is counted as timed out at once. A child
+ * without a budget runs on the calling thread: in PARALLEL mode after the budgeted children have
+ * been started, so that it overlaps with them. Give budgets to the slow children only, and the
+ * cheap ones run without any handoff between threads.
+ */
+public class CompositeCorrector extends Corrector {
+  /** How the children are asked. */
+  public enum Mode {
+    /** Ask every child at once and merge all their corrections. */
+    PARALLEL,
+    /** Ask the children in order and return the corrections of the first that has any. */
+    CASCADE
+  }
+
+  /** The most threads of the shared pool that runs budgeted children. */
+  public static final int MAX_CHILD_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Runs budgeted children of composites that are not given an executor. It queues nothing, so
+   * once overrunning children hold all its threads, new children are rejected instead of piling
+   * up behind them.
+   */
+  private static final ExecutorService CHILDREN = new ThreadPoolExecutor(0, MAX_CHILD_THREADS,
+      60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+        Thread thread = new Thread(r, "CompositeCorrector child");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final Mode mode;
+  private final Executor executor;
+  private final List<Child> children;
+
+  /** A child Corrector with its budget and statistics. */
+  private static final class Child {
+    final Corrector corrector;
+    final long budgetNanos;
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LongAdder timeouts = new LongAdder();
+
+    Child(Corrector corrector, long budgetNanos) {
+      this.corrector = corrector;
+      this.budgetNanos = budgetNanos;
+    }
+
+    Set<String> getCorrections(String wrong) {
+      long start = System.nanoTime();
+      try {
+        return corrector.getCorrections(wrong);
+      } finally {
+        latency.record(System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * Constructs a CompositeCorrector without children that runs budgeted children on a shared pool
+   * of at most MAX_CHILD_THREADS daemon threads.
+   *
+   * @param mode How the children are asked
+   * @throws IllegalArgumentException If the argued mode is null
+   */
+  public CompositeCorrector(Mode mode) {
+    this(mode, CHILDREN);
+  }
+
+  /**
+   * Constructs a CompositeCorrector without children.
+   *
+   * @param mode How the children are asked
+   * @param executor Runs the children that have a budget. It must be able to run all of them at
+   *     once for every concurrent call, or their budgets will be spent waiting for a thread. A
+   *     child it rejects counts as timed out.
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public CompositeCorrector(Mode mode, Executor executor) {
+    this(mode, executor, Collections.<Child>emptyList());
+  }
+
+  private CompositeCorrector(Mode mode, Executor executor, List<Child> children) {
+    if (mode == null || executor == null) {
+      throw new IllegalArgumentException();
+    }
+    this.mode = mode;
+    this.executor = executor;
+    this.children = children;
+  }
+
+  /**
+   * Returns a CompositeCorrector that also asks the argued child, after the existing ones, on the
+   * calling thread and without a budget. The children are shared, not copied, with this
+   * CompositeCorrector, which is left unchanged.
+   *
+   * @param child The Corrector to add
+   * @return A CompositeCorrector with one more child
+   * @throws IllegalArgumentException If the argued Corrector is null
+   */
+  public CompositeCorrector with(Corrector child) {
+    return with(child, 0, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns a CompositeCorrector that also asks the argued child, after the existing ones, within
+   * a latency budget. The children are shared, not copied, with this CompositeCorrector, which is
+   * left unchanged.
+   *
+   * @param child The Corrector to add
+   * @param budget The longest the child may take, or 0 to run it on the calling thread without a
+   *     budget
+   * @param unit The unit of the budget
+   * @return A CompositeCorrector with one more child
+   * @throws IllegalArgumentException If the argued Corrector or unit is null, or the budget is
+   *     negative
+   */
+  public CompositeCorrector with(Corrector child, long budget, TimeUnit unit) {
+    if (child == null || unit == null || budget < 0) {
+      throw new IllegalArgumentException();
+    }
+    List<Child> added = new ArrayList<>(children);
+    added.add(new Child(child, unit.toNanos(budget)));
+    return new CompositeCorrector(mode, executor, Collections.unmodifiableList(added));
+  }
+
+  /**
+   * Returns the corrections of the children, merged as the mode of this CompositeCorrector
+   * dictates.
+   *
+   * @param wrong The misspelled word
+   * @return A (potentially empty) set of proposed corrections, in order of priority
+   * @throws IllegalArgumentException If the input is not a valid word (i.e. not composed of only
+   *     letters and/or apostrophes)
+   */
+  public Set<String> getCorrections(String wrong) {
+    if (wrong == null || !TokenScanner.isWord(wrong)) {
+      throw new IllegalArgumentException();
+    }
+    if (mode == Mode.CASCADE) {
+      for (Child child : children) {
+        Set<String> corrections = child.budgetNanos == 0
+            ? child.getCorrections(wrong)
+            : await(child, start(child, wrong), System.nanoTime());
+        if (!corrections.isEmpty()) {
+          return merge(Collections.singletonList(corrections));
+        }
+      }
+      return new LinkedHashSet<>();
+    }
+
+    long start = System.nanoTime();
+    List<FutureTask<Set<String>>> tasks = new ArrayList<>(children.size());
+    try {
+      for (Child child : children) {
+        tasks.add(child.budgetNanos == 0 ? null : start(child, wrong));
+      }
+      List<Set<String>> answers = new ArrayList<>(children.size());
+      for (Child child : children) {
+        answers.add(child.budgetNanos == 0 ? child.getCorrections(wrong) : null);
+      }
+      for (int i = 0; i < children.size(); i++) {
+        if (tasks.get(i) != null) {
+          answers.set(i, await(children.get(i), tasks.get(i), start));
+        }
+      }
+      return merge(answers);
+    } finally {
+      // Stops the children still running if another one failed.
+      for (FutureTask<Set<String>> task : tasks) {
+        if (task != null) {
+          task.cancel(true);
+        }
+      }
+    }
+  }
+
+  /** Starts a budgeted child on the executor, or cancels it if the executor rejects it. */
+  private FutureTask<Set<String>> start(Child child, String wrong) {
+    FutureTask<Set<String>> task = new FutureTask<>(() -> child.getCorrections(wrong));
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.cancel(false);
+    }
+    return task;
+  }
+
+  /**
+   * Waits for a budgeted child until its budget, counted from the argued start, runs out.
+   *
+   * @return The corrections of the child, or an empty set if it ran out of time, was rejected by
+   *     the executor or this thread was interrupted
+   */
+  private static Set<String> await(Child child, FutureTask<Set<String>> task, long start) {
+    try {
+      long remaining = start + child.budgetNanos - System.nanoTime();
+      return task.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | CancellationException e) {
+      child.timeouts.increment();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+    task.cancel(true);
+    return Collections.emptySet();
+  }
+
+  /** Merges answers in order of priority, keeping the first spelling of each correction. */
+  private static Set<String> merge(List<Set<String>> answers) {
+    Set<String> merged = new LinkedHashSet<>();
+    HashWordSet seen = new HashWordSet(8);
+    for (Set<String> answer : answers) {
+      for (String correction : answer) {
+        if (seen.add(correction)) {
+          merged.add(correction);
+        }
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Returns the number of children.
+   *
+   * @return The number of children
+   */
+  public int getNumChildren() {
+    return children.size();
+  }
+
+  /**
+   * Returns how long a child takes to answer, including the answers that came too late to be
+   * used.
+   *
+   * @param index The priority of the child, counting from 0
+   * @return The live histogram of the child's latencies in nanoseconds
+   * @throws IndexOutOfBoundsException If there is no such child
+   */
+  public LatencyHistogram getLatency(int index) {
+    return children.get(index).latency;
+  }
+
+  /**
+   * Returns the number of times a child ran out of its budget, or could not be started because
+   * the executor rejected it.
+   *
+   * @param index The priority of the child, counting from 0
+   * @return The number of timeouts
+   * @throws IndexOutOfBoundsException If there is no such child
+   */
+  public long getTimeouts(int index) {
+    return children.get(index).timeouts.sum();
+  }
+}
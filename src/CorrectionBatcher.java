@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gathers concurrent getCorrections requests into batches that a few threads answer, each batch
+ * in a single pass over a Corrector, used by SpellCheckServer.
+ *
+ * <p>Batching is natural rather than timed: whatever arrives while the batching threads are busy
+ * forms the next batches, so a lone request waits for nothing, and under load the batches grow by
+ * themselves. Within a batch each distinct word is corrected once, however many requests ask for
+ * it, which is common with the skewed word frequencies of real text. There is one batching thread
+ * per processor by default, so an expensive Corrector still uses every core; it must therefore be
+ * thread safe.
+ *
+ * <p>At most maxQueued requests wait for a batch; beyond that getCorrections rejects new ones, so
+ * that overload is refused at once instead of every request waiting longer and longer. Requests
+ * whose future is already done, typically because the caller gave up waiting and cancelled it,
+ * are dropped from their batch without calling the Corrector.
+ *
+ * <p>Every future returned by getCorrections completes: with the corrections, with whatever the
+ * Corrector threw for the word, Errors included, or with RejectedExecutionException once the
+ * batcher has closed.
+ */
+final class CorrectionBatcher implements AutoCloseable {
+  private final Corrector corrector;
+  private final int maxBatch;
+  private final BlockingQueue<Request> queue;
+  private final List<Thread> threads = new ArrayList<>();
+  private volatile boolean closed;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder corrections = new LongAdder();
+  private final LongAdder abandoned = new LongAdder();
+
+  /** A word waiting for its corrections. */
+  private static final class Request {
+    final String word;
+    final CompletableFuture<Set<String>> result = new CompletableFuture<>();
+
+    Request(String word) {
+      this.word = word;
+    }
+  }
+
+  /**
+   * Starts the batching threads over the argued Corrector.
+   *
+   * @param corrector Answers the requests. It is called from every batching thread at once.
+   * @param maxBatch The most requests answered in one batch
+   * @param threads The number of batching threads
+   * @param maxQueued The most requests waiting for a batch
+   * @throws IllegalArgumentException If corrector is null or a number is less than one
+   */
+  CorrectionBatcher(Corrector corrector, int maxBatch, int threads, int maxQueued) {
+    if (corrector == null || maxBatch < 1 || threads < 1 || maxQueued < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.corrector = corrector;
+    this.maxBatch = maxBatch;
+    this.queue = new LinkedBlockingQueue<>(maxQueued);
+    for (int i = 0; i < threads; i++) {
+      Thread thread = new Thread(this::run, "CorrectionBatcher " + i);
+      thread.setDaemon(true);
+      this.threads.add(thread);
+    }
+    for (Thread thread : this.threads) {
+      thread.start();
+    }
+  }
+
+  /**
+   * Queues a word for the next batch.
+   *
+   * @param word The misspelled word
+   * @return A future completed with the corrections of the word, or with the exception the
+   *     Corrector threw for it. Cancelling it spares the Corrector the work if the batch has not
+   *     reached the word yet.
+   * @throws RejectedExecutionException If this batcher has been closed or maxQueued requests are
+   *     already waiting
+   */
+  CompletableFuture<Set<String>> getCorrections(String word) {
+    if (closed) {
+      throw new RejectedExecutionException("closed");
+    }
+    Request request = new Request(word);
+    if (!queue.offer(request)) {
+      throw new RejectedExecutionException("too many pending corrections");
+    }
+    // A close that raced with the check above may already have drained the queue for the last
+    // time; if so, nothing would ever answer the request.
+    if (closed && queue.remove(request)) {
+      throw new RejectedExecutionException("closed");
+    }
+    return request.result;
+  }
+
+  /**
+   * Returns the average number of requests answered per batch.
+   *
+   * @return The mean batch size, or 0 if no batch has been answered
+   */
+  double getMeanBatchSize() {
+    long n = batches.sum();
+    return n == 0 ? 0 : (double) requests.sum() / n;
+  }
+
+  /**
+   * Returns the fraction of requests answered without calling the Corrector, because another
+   * request in the same batch asked for the same word.
+   *
+   * @return The fraction of requests shared, or 0 if there were none
+   */
+  double getSharedFraction() {
+    long n = requests.sum();
+    return n == 0 ? 0 : 1 - (double) corrections.sum() / n;
+  }
+
+  /**
+   * Returns the number of requests dropped from their batch because their future was already
+   * done, usually cancelled by a caller that stopped waiting.
+   *
+   * @return The number of abandoned requests
+   */
+  long getAbandoned() {
+    return abandoned.sum();
+  }
+
+  /** Stops the batching threads. Requests still queued fail with RejectedExecutionException. */
+  public void close() {
+    closed = true;
+    for (Thread thread : threads) {
+      thread.interrupt();
+    }
+  }
+
+  private void run() {
+    List<Request> batch = new ArrayList<>();
+    Map<String, Set<String>> answered = new HashMap<>();
+    try {
+      while (!closed) {
+        batch.add(queue.take());
+        queue.drainTo(batch, maxBatch - 1);
+        answer(batch, answered);
+        batch.clear();
+        answered.clear();
+      }
+    } catch (InterruptedException e) {
+      // Closed.
+    } finally {
+      closed = true;
+      queue.drainTo(batch);
+      for (Request request : batch) {
+        request.result.completeExceptionally(new RejectedExecutionException("closed"));
+      }
+    }
+  }
+
+  private void answer(List<Request> batch, Map<String, Set<String>> answered) {
+    batches.increment();
+    for (Request request : batch) {
+      if (request.result.isDone()) {
+        abandoned.increment();
+        continue;
+      }
+      requests.increment();
+      Set<String> result = answered.get(request.word);
+      if (result == null) {
+        try {
+          corrections.increment();
+          result = Collections.unmodifiableSet(corrector.getCorrections(request.word));
+        } catch (Throwable e) {
+          request.result.completeExceptionally(e);
+          continue;
+        }
+        answered.put(request.word, result);
+      }
+      request.result.complete(result);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+import java.io.InputStream;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Decides, without asking a user, how a SpellChecker should correct a misspelled word.
+ *
+ * <p>Policies are shared by every document a SpellChecker checks, possibly on many threads at
+ * once, so implementations should be stateless or thread safe. The interactive policy, which does
+ * ask a user, is the exception.
+ */
+public interface CorrectionPolicy {
+
+  /** Leaves every misspelled word as it is. */
+  CorrectionPolicy LEAVE = (word, suggestions) -> word;
+
+  /** Replaces a misspelled word with its first suggestion, or leaves it if there is none. */
+  CorrectionPolicy FIRST_SUGGESTION =
+      (word, suggestions) -> suggestions.isEmpty() ? word : suggestions.get(0);
+
+  /**
+   * Replaces a misspelled word with the suggestion closest to it by Damerau-Levenshtein distance,
+   * ignoring case, taking the first of equally close suggestions. That is the alphabetically first
+   * one, or the most frequent one when the SpellChecker has a SuggestionRanker, which orders
+   * suggestions the same way. A word without suggestions is left.
+   */
+  CorrectionPolicy BEST_RANKED = (word, suggestions) -> {
+    EditDistance distance = new EditDistance();
+    String lower = HashWordSet.lowerCase(word);
+    String best = word;
+    int bestDistance = Integer.MAX_VALUE;
+    for (String suggestion : suggestions) {
+      int bound = Math.min(bestDistance, Math.max(lower.length(), suggestion.length()));
+      int d = distance.damerau(lower, HashWordSet.lowerCase(suggestion), bound);
+      if (d < bestDistance) {
+        best = suggestion;
+        bestDistance = d;
+      }
+    }
+    return best;
+  };
+
+  /**
+   * Chooses the text to write in place of a misspelled word.
+   *
+   * @param word The misspelled word
+   * @param suggestions The corrections proposed by the Corrector, sorted alphabetically, or best
+   *     first if the SpellChecker ranks them
+   * @return The replacement text; returning word leaves the word unchanged
+   */
+  String choose(String word, List<String> suggestions);
+
+  /**
+   * Returns a policy that asks the user how to correct each misspelled word. The user types 0 to
+   * leave the word, 1 followed by a replacement to type one in, or the number of a suggestion
+   * counting from 2. The policy reads the user's choices from one Scanner, so it must only be used
+   * for one document at a time.
+   *
+   * @param input The stream from which the user's choices are read
+   * @return An interactive policy
+   */
+  static CorrectionPolicy interactive(InputStream input) {
+    Scanner sc = new Scanner(input);
+    return (word, suggestions) -> SpellChecker.chooseCorrection(word, suggestions, sc);
+  }
+}
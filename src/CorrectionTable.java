@@ -0,0 +1,216 @@
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact, read-only map from lowercase misspellings to their lowercase corrections, used by
+ * FileCorrector.
+ *
+ * <p>The misspellings are packed end to end in one char array and found through an open-addressing
+ * table of entry numbers, probed with the case-insensitive hash of HashWordSet, so a lookup never
+ * lowercases or copies its argument. Each correction string is stored once no matter how many
+ * misspellings it corrects, and the unmodifiable set of corrections of every misspelling is built
+ * up front, with misspellings that have a single correction sharing one singleton set per
+ * correction.
+ */
+final class CorrectionTable {
+  private final char[] keyChars;
+  private final int[] keyStarts;
+  private final int[] hashes;
+  private final int[] slots;
+  private final int mask;
+  private final Set<String>[] corrections;
+
+  private CorrectionTable(
+      char[] keyChars, int[] keyStarts, int[] hashes, int[] slots, Set<String>[] corrections) {
+    this.keyChars = keyChars;
+    this.keyStarts = keyStarts;
+    this.hashes = hashes;
+    this.slots = slots;
+    this.mask = slots.length - 1;
+    this.corrections = corrections;
+  }
+
+  /**
+   * Returns the corrections of a misspelling, ignoring its case.
+   *
+   * @param word The misspelling
+   * @return The unmodifiable, sorted set of its lowercase corrections, or null if it has none
+   */
+  Set<String> get(CharSequence word) {
+    int hash = HashWordSet.hash(word);
+    int i = hash & mask;
+    int slot;
+    while ((slot = slots[i]) != 0) {
+      int entry = slot - 1;
+      if (hashes[entry] == hash && keyEquals(entry, word)) {
+        return corrections[entry];
+      }
+      i = (i + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of misspellings in this table.
+   *
+   * @return The number of misspellings
+   */
+  int size() {
+    return corrections.length;
+  }
+
+  private boolean keyEquals(int entry, CharSequence word) {
+    int start = keyStarts[entry];
+    int length = keyStarts[entry + 1] - start;
+    if (word.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (keyChars[start + i] != Character.toLowerCase(word.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Collects misspelling/correction pairs and builds a CorrectionTable from them. Duplicate pairs
+   * are ignored. A Builder is not thread safe.
+   */
+  static final class Builder {
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> valueIds = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private long[] pairs = new long[64];
+    private int numPairs;
+
+    /**
+     * Records that the argued misspelling may be corrected to the argued correction. Both are
+     * lowercased.
+     *
+     * @param misspelling The misspelled word
+     * @param correction A correction of it
+     */
+    void add(String misspelling, String correction) {
+      int key = id(HashWordSet.lowerCase(misspelling), keyIds, keys);
+      int value = id(HashWordSet.lowerCase(correction), valueIds, values);
+      if (numPairs == pairs.length) {
+        pairs = Arrays.copyOf(pairs, numPairs * 2);
+      }
+      pairs[numPairs++] = ((long) key << 32) | value;
+    }
+
+    /**
+     * Builds the table of the pairs recorded so far.
+     *
+     * @return A new CorrectionTable
+     */
+    CorrectionTable build() {
+      // Renumber the corrections alphabetically, so that sorting the pairs also sorts the
+      // corrections of each misspelling.
+      String[] sortedValues = values.toArray(new String[0]);
+      Arrays.sort(sortedValues);
+      int[] rank = new int[sortedValues.length];
+      for (int r = 0; r < sortedValues.length; r++) {
+        rank[valueIds.get(sortedValues[r])] = r;
+      }
+      long[] sorted = new long[numPairs];
+      for (int i = 0; i < numPairs; i++) {
+        sorted[i] = (pairs[i] & 0xFFFFFFFF00000000L) | rank[(int) pairs[i]];
+      }
+      Arrays.sort(sorted);
+
+      int numKeys = keys.size();
+      int numChars = 0;
+      for (String key : keys) {
+        numChars += key.length();
+      }
+      char[] keyChars = new char[numChars];
+      int[] keyStarts = new int[numKeys + 1];
+      int[] hashes = new int[numKeys];
+      int capacity = Integer.highestOneBit(Math.max(numKeys * 2, 8) - 1) << 1;
+      int[] slots = new int[capacity];
+      for (int k = 0; k < numKeys; k++) {
+        String key = keys.get(k);
+        key.getChars(0, key.length(), keyChars, keyStarts[k]);
+        keyStarts[k + 1] = keyStarts[k] + key.length();
+        hashes[k] = HashWordSet.hash(key);
+        int i = hashes[k] & (capacity - 1);
+        while (slots[i] != 0) {
+          i = (i + 1) & (capacity - 1);
+        }
+        slots[i] = k + 1;
+      }
+
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      Set<String>[] corrections = new Set[numKeys];
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      Set<String>[] singletons = new Set[sortedValues.length];
+      String[] group = new String[8];
+      int i = 0;
+      while (i < numPairs) {
+        int key = (int) (sorted[i] >>> 32);
+        int size = 0;
+        for (; i < numPairs && (int) (sorted[i] >>> 32) == key; i++) {
+          if (i > 0 && sorted[i] == sorted[i - 1]) {
+            continue;
+          }
+          if (size == group.length) {
+            group = Arrays.copyOf(group, size * 2);
+          }
+          group[size++] = sortedValues[(int) sorted[i]];
+        }
+        if (size == 1) {
+          int value = (int) sorted[i - 1];
+          if (singletons[value] == null) {
+            singletons[value] = Collections.singleton(group[0]);
+          }
+          corrections[key] = singletons[value];
+        } else {
+          corrections[key] = new SortedArraySet(Arrays.copyOf(group, size));
+        }
+      }
+      return new CorrectionTable(keyChars, keyStarts, hashes, slots, corrections);
+    }
+
+    /** Returns the number of the argued string, numbering it if it is new. */
+    private static int id(String s, Map<String, Integer> ids, List<String> strings) {
+      Integer id = ids.get(s);
+      if (id == null) {
+        id = strings.size();
+        ids.put(s, id);
+        strings.add(s);
+      }
+      return id;
+    }
+  }
+
+  /** An unmodifiable set over a sorted array of distinct Strings. */
+  private static final class SortedArraySet extends AbstractSet<String> {
+    private final String[] elements;
+
+    SortedArraySet(String[] elements) {
+      this.elements = elements;
+    }
+
+    public boolean contains(Object o) {
+      return o instanceof String && Arrays.binarySearch(elements, o) >= 0;
+    }
+
+    public Iterator<String> iterator() {
+      return Collections.unmodifiableList(Arrays.asList(elements)).iterator();
+    }
+
+    public int size() {
+      return elements.length;
+    }
+  }
+}
@@ -0,0 +1,390 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A compact, read-only WordSet stored as a minimal acyclic finite-state automaton (a DAWG).
+ *
+ * <p>Words that share prefixes share a path from the root, and words that share suffixes share the
+ * states at the end of their paths, so a large word list takes a small fraction of the memory of
+ * one String per word. The automaton lives in a handful of flat arrays:
+ *
+ * <ul>
+ *   <li>the outgoing edges of state s are the indices [edgeStart(s), edgeEnd(s)), sorted by label;
+ *   <li>edge e is labelled edgeLabel(e) and leads to state edgeTarget(e);
+ *   <li>a state is final if a word ends there.
+ * </ul>
+ *
+ * <p>Besides membership tests, the automaton can be walked one character at a time from root(),
+ * which lets edit-distance correctors search the whole word list without enumerating it.
+ *
+ * <p>A Dawg is immutable; add throws UnsupportedOperationException. Wrap one in a Dictionary with
+ * Dictionary(WordSet).
+ */
+public class Dawg implements WordSet {
+  private final int[] firstEdge;
+  private final char[] labels;
+  private final int[] targets;
+  private final byte[] finals;
+  private final int numWords;
+
+  private Dawg(int[] firstEdge, char[] labels, int[] targets, byte[] finals, int numWords) {
+    this.firstEdge = firstEdge;
+    this.labels = labels;
+    this.targets = targets;
+    this.finals = finals;
+    this.numWords = numWords;
+  }
+
+  /**
+   * Builds a Dawg from the words provided by a TokenScanner. As with Dictionary(TokenScanner),
+   * non-word tokens are ignored and words are stored in lowercase.
+   *
+   * @param ts Sequence of words to store
+   * @return A Dawg containing the words
+   * @throws IOException If error while reading
+   * @throws IllegalArgumentException If the provided token scanner is null
+   */
+  public static Dawg build(TokenScanner ts) throws IOException {
+    if (ts == null) {
+      throw new IllegalArgumentException();
+    }
+    HashWordSet words = new HashWordSet();
+    while (ts.advance()) {
+      if (ts.isWordToken()) {
+        words.add(ts.token());
+      }
+    }
+    return build(words);
+  }
+
+  /**
+   * Builds a Dawg holding the lowercase forms of the argued words.
+   *
+   * @param words The words to store, in any order and possibly repeated
+   * @return A Dawg containing the words
+   * @throws IllegalArgumentException If the argued words are null
+   */
+  public static Dawg build(Iterable<String> words) {
+    if (words == null) {
+      throw new IllegalArgumentException();
+    }
+    List<String> sorted = new ArrayList<>();
+    for (String word : words) {
+      sorted.add(HashWordSet.lowerCase(word));
+    }
+    String[] array = sorted.toArray(new String[0]);
+    Arrays.sort(array);
+
+    Builder builder = new Builder();
+    String previous = null;
+    for (String word : array) {
+      if (!word.equals(previous) && word.length() > 0) {
+        builder.insert(word);
+        previous = word;
+      }
+    }
+    return builder.finish();
+  }
+
+  /**
+   * Returns the start state of the automaton.
+   *
+   * @return The root state
+   */
+  public int root() {
+    return 0;
+  }
+
+  /**
+   * Returns the state reached from the argued state by the argued character, ignoring case.
+   *
+   * @param state A state of this automaton
+   * @param c The character to follow
+   * @return The next state, or -1 if there is no such transition
+   */
+  public int transition(int state, char c) {
+    c = Character.toLowerCase(c);
+    int lo = firstEdge[state];
+    int hi = firstEdge[state + 1] - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      char label = labels[mid];
+      if (label < c) {
+        lo = mid + 1;
+      } else if (label > c) {
+        hi = mid - 1;
+      } else {
+        return targets[mid];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Determines whether a word ends at the argued state.
+   *
+   * @param state A state of this automaton
+   * @return True if the path from the root to this state spells a word
+   */
+  public boolean isFinal(int state) {
+    return (finals[state >>> 3] & (1 << (state & 7))) != 0;
+  }
+
+  /**
+   * Returns the index of the first outgoing edge of a state.
+   *
+   * @param state A state of this automaton
+   * @return The first edge index of the state
+   */
+  public int edgeStart(int state) {
+    return firstEdge[state];
+  }
+
+  /**
+   * Returns one past the index of the last outgoing edge of a state.
+   *
+   * @param state A state of this automaton
+   * @return The end edge index of the state
+   */
+  public int edgeEnd(int state) {
+    return firstEdge[state + 1];
+  }
+
+  /**
+   * Returns the (lowercase) label of an edge.
+   *
+   * @param edge An edge index
+   * @return The character on the edge
+   */
+  public char edgeLabel(int edge) {
+    return labels[edge];
+  }
+
+  /**
+   * Returns the state an edge leads to.
+   *
+   * @param edge An edge index
+   * @return The target state of the edge
+   */
+  public int edgeTarget(int edge) {
+    return targets[edge];
+  }
+
+  /**
+   * Returns the number of states in the automaton.
+   *
+   * @return The number of states
+   */
+  public int getNumStates() {
+    return firstEdge.length - 1;
+  }
+
+  public boolean add(CharSequence word) {
+    throw new UnsupportedOperationException();
+  }
+
+  public boolean contains(CharSequence word) {
+    if (word == null || word.length() == 0) {
+      return false;
+    }
+    int state = root();
+    for (int i = 0; i < word.length() && state >= 0; i++) {
+      state = transition(state, word.charAt(i));
+    }
+    return state >= 0 && isFinal(state);
+  }
+
+  public boolean contains(char[] chars, int offset, int length) {
+    if (length == 0) {
+      return false;
+    }
+    int state = root();
+    for (int i = offset; i < offset + length && state >= 0; i++) {
+      state = transition(state, chars[i]);
+    }
+    return state >= 0 && isFinal(state);
+  }
+
+  public int size() {
+    return numWords;
+  }
+
+  /** Iterates over the words in alphabetical order by walking the automaton depth first. */
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private final StringBuilder path = new StringBuilder();
+      private int[] edgeStack = new int[16];
+      private int depth = -1;
+      private String next = descend(root());
+
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      public String next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        String word = next;
+        next = findNext();
+        return word;
+      }
+
+      /** Pushes the first edge of the state, or reports the word ending there. */
+      private String descend(int state) {
+        if (depth + 1 == edgeStack.length) {
+          edgeStack = Arrays.copyOf(edgeStack, edgeStack.length * 2);
+        }
+        edgeStack[++depth] = edgeStart(state) - 1;
+        if (isFinal(state)) {
+          return path.toString();
+        }
+        return findNext();
+      }
+
+      private String findNext() {
+        while (depth >= 0) {
+          int state = depth == 0 ? root() : edgeTarget(edgeStack[depth - 1]);
+          int edge = ++edgeStack[depth];
+          if (edge < edgeEnd(state)) {
+            path.setLength(depth);
+            path.append(edgeLabel(edge));
+            return descend(edgeTarget(edge));
+          }
+          depth--;
+        }
+        return null;
+      }
+    };
+  }
+
+  /**
+   * Builds a minimal automaton from words given in sorted order, using the incremental algorithm
+   * of Daciuk et al.: once a word has been added, every state on the path of the previous word
+   * below the common prefix can never change again, so it is either merged with an equivalent
+   * registered state or registered itself.
+   */
+  private static class Builder {
+    private final Node root = new Node();
+    private final List<Node> unchecked = new ArrayList<>();
+    private final Map<String, Node> registry = new HashMap<>();
+    private String previous = "";
+    private int numWords;
+    private int numEdges;
+
+    void insert(String word) {
+      int common = 0;
+      int max = Math.min(word.length(), previous.length());
+      while (common < max && word.charAt(common) == previous.charAt(common)) {
+        common++;
+      }
+      minimize(common);
+
+      Node node = unchecked.isEmpty() ? root : unchecked.get(unchecked.size() - 1);
+      for (int i = common; i < word.length(); i++) {
+        Node child = new Node();
+        node.addEdge(word.charAt(i), child);
+        unchecked.add(child);
+        node = child;
+      }
+      node.isFinal = true;
+      previous = word;
+      numWords++;
+    }
+
+    /** Merges or registers every unchecked state deeper than the argued prefix length. */
+    private void minimize(int downTo) {
+      for (int i = unchecked.size() - 1; i >= downTo; i--) {
+        Node child = unchecked.remove(i);
+        Node parent = i == 0 ? root : unchecked.get(i - 1);
+        String key = child.signature();
+        Node existing = registry.get(key);
+        if (existing != null) {
+          parent.targets[parent.numEdges - 1] = existing;
+        } else {
+          child.id = registry.size() + 1;
+          registry.put(key, child);
+          numEdges += child.numEdges;
+        }
+      }
+    }
+
+    Dawg finish() {
+      minimize(0);
+      numEdges += root.numEdges;
+      int numStates = registry.size() + 1;
+
+      // Number the states breadth first from the root so that the root is state 0.
+      Node[] order = new Node[numStates];
+      Map<Node, Integer> index = new HashMap<>();
+      order[0] = root;
+      index.put(root, 0);
+      int count = 1;
+      for (int i = 0; i < count; i++) {
+        Node node = order[i];
+        for (int e = 0; e < node.numEdges; e++) {
+          Node target = node.targets[e];
+          if (!index.containsKey(target)) {
+            index.put(target, count);
+            order[count++] = target;
+          }
+        }
+      }
+
+      int[] firstEdge = new int[count + 1];
+      char[] labels = new char[numEdges];
+      int[] targets = new int[numEdges];
+      byte[] finals = new byte[(count + 7) / 8];
+      int edge = 0;
+      for (int s = 0; s < count; s++) {
+        Node node = order[s];
+        firstEdge[s] = edge;
+        if (node.isFinal) {
+          finals[s >>> 3] |= 1 << (s & 7);
+        }
+        for (int e = 0; e < node.numEdges; e++) {
+          labels[edge] = node.labels[e];
+          targets[edge] = index.get(node.targets[e]);
+          edge++;
+        }
+      }
+      firstEdge[count] = edge;
+      return new Dawg(firstEdge, labels, targets, finals, numWords);
+    }
+  }
+
+  /** A mutable state used only while building. Edges are appended in increasing label order. */
+  private static class Node {
+    private char[] labels = new char[2];
+    private Node[] targets = new Node[2];
+    private int numEdges;
+    private boolean isFinal;
+    private int id;
+
+    void addEdge(char label, Node target) {
+      if (numEdges == labels.length) {
+        labels = Arrays.copyOf(labels, numEdges * 2);
+        targets = Arrays.copyOf(targets, numEdges * 2);
+      }
+      labels[numEdges] = label;
+      targets[numEdges] = target;
+      numEdges++;
+    }
+
+    /** Describes the right language of a registered-children node; equal signatures merge. */
+    String signature() {
+      StringBuilder sb = new StringBuilder(numEdges * 6 + 1);
+      sb.append(isFinal ? '1' : '0');
+      for (int e = 0; e < numEdges; e++) {
+        sb.append(labels[e]).append(targets[e].id).append(',');
+      }
+      return sb.toString();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
 import java.lang.*;
 
@@ -8,9 +9,19 @@ import java.lang.*;
  *
  * A dictionary is case insensitive and only stores "valid" words. A valid word is any sequence of
  * letters (as determined by Character.isLetter) or apostrophes characters.
+ * <p>
+ * The words themselves are kept in a WordSet. By default this is a HashWordSet, but any other
+ * backend can be supplied when the Dictionary is constructed. withLookupCache puts a small cache of
+ * recent answers in front of isWord, and withBloomFilter a Bloom filter that rejects most
+ * non-words before they are looked up. withOverlay returns a Dictionary to which words can be
+ * added and from which they can be removed without rebuilding it. withFrequencies attaches
+ * WordFrequencies, by which a SuggestionRanker puts common words before rare ones.
  */
 public class Dictionary {
-    private Set<String> dictionary;
+    private final WordSet dictionary;
+    private final WordSet lookup;
+    private final BloomFilter filter;
+    private final WordFrequencies frequencies;
 
     /**
      * Constructs a Dictionary from words provided by a TokenScanner.
@@ -23,19 +34,72 @@ public class Dictionary {
      * @throws IllegalArgumentException If the provided token scanner is null
      */
     public Dictionary(TokenScanner ts) {
-        if (ts == null) {
+        this(ts, new HashWordSet());
+    }
+
+    /**
+     * Constructs a Dictionary from words provided by a TokenScanner, storing them in the argued
+     * WordSet. The WordSet should be empty and must not be modified by the caller afterwards.
+     *
+     * @param ts Sequence of words to store in this Dictionary
+     * @param storage The backend in which to store the words
+     * @throws IllegalArgumentException If the provided token scanner or storage is null
+     */
+    public Dictionary(TokenScanner ts, WordSet storage) {
+        if (ts == null || storage == null) {
             throw new IllegalArgumentException();
         }
         
-        dictionary = new TreeSet<>();
-        while(ts.hasNext()) {
-            String nextToken = ts.next();
-            if(TokenScanner.isWord(nextToken)) {
-                dictionary.add(nextToken.toLowerCase());
+        dictionary = storage;
+        lookup = storage;
+        filter = null;
+        frequencies = null;
+        try {
+            while (ts.advance()) {
+                if (ts.isWordToken()) {
+                    dictionary.add(ts.token());
+                }
             }
+        } catch (IOException e) {
+            throw new NoSuchElementException();
         }
     }
 
+    /**
+     * Returns a Dictionary over a WordSet that has already been filled, such as a Dawg. The
+     * WordSet must not be modified by the caller afterwards.
+     *
+     * @param words The words of the Dictionary
+     * @return A Dictionary of the argued words
+     * @throws IllegalArgumentException If the provided word set is null
+     */
+    public static Dictionary of(WordSet words) {
+        return new Dictionary(words);
+    }
+
+    /** Constructs a Dictionary over a WordSet that has already been filled. */
+    private Dictionary(WordSet words) {
+        if (words == null) {
+            throw new IllegalArgumentException();
+        }
+        dictionary = words;
+        lookup = words;
+        filter = null;
+        frequencies = null;
+    }
+
+    /**
+     * Constructs a Dictionary that answers isWord by consulting the filter, if any, and then the
+     * lookup WordSet, which is either the words themselves or a cache in front of them.
+     */
+    private Dictionary(WordSet words, WordSet lookup, BloomFilter filter,
+            WordFrequencies frequencies) {
+        this.dictionary = words;
+        this.lookup = lookup;
+        this.filter = filter;
+        this.frequencies = frequencies;
+    }
+
     /**
      * Constructs a Dictionary from words from a file.
      *
@@ -57,6 +121,249 @@ public class Dictionary {
         }
      }
 
+    /**
+     * Compiles this Dictionary into a binary snapshot file that load can map back in without
+     * re-reading the word list. An existing snapshot is replaced atomically, so Dictionaries
+     * still loaded from it keep working.
+     *
+     * @param filename Location of the snapshot file to write
+     * @throws IOException If error while writing
+     */
+    public void compile(String filename) throws IOException {
+        MappedWordSet.write(dictionary, filter, Paths.get(filename));
+    }
+
+    /**
+     * Constructs a Dictionary from a snapshot file written by compile. The file is memory-mapped
+     * and used in place, so no words are parsed or copied. If the Dictionary that was compiled had
+     * a Bloom filter, so does the loaded one.
+     *
+     * @param filename Location of the snapshot file
+     * @return A Dictionary instance with the words of the snapshot
+     * @throws FileNotFoundException If the file does not exist
+     * @throws IOException If error while reading, or if the file is not a snapshot, is of an
+     *                     unknown version or does not match its checksum
+     */
+    public static Dictionary load(String filename) throws IOException {
+        if (!new File(filename).exists()) {
+            throw new FileNotFoundException();
+        }
+        MappedWordSet words = new MappedWordSet(Paths.get(filename));
+        return new Dictionary(words, words, words.getBloomFilter(), null);
+    }
+
+    /**
+     * Constructs a Dictionary from a snapshot file written by compile, or, if the snapshot is
+     * missing, of an unknown version, or does not match its checksum, from the word list it was
+     * compiled from, as make does. The snapshot is not rewritten.
+     *
+     * @param filename Location of the snapshot file
+     * @param wordList Location of the word list to fall back to
+     * @return A Dictionary instance with the words of the snapshot or of the word list
+     * @throws FileNotFoundException If the snapshot cannot be used and the word list does not exist
+     * @throws IOException If the snapshot cannot be used and error while reading the word list
+     */
+    public static Dictionary load(String filename, String wordList) throws IOException {
+        try {
+            return load(filename);
+        } catch (IOException e) {
+            return make(wordList);
+        }
+    }
+
+    /**
+     * Returns a Dictionary with the same words that caches the answers of recent isWord calls,
+     * both for words it knows and for words it does not. The words are shared, not copied.
+     *
+     * @param slots The number of slots of the cache, rounded up to a power of two
+     * @return A Dictionary with a lookup cache
+     * @throws IllegalArgumentException If slots is less than one
+     * @throws IllegalStateException If this Dictionary was made by withOverlay
+     * @see CachedWordSet
+     */
+    public Dictionary withLookupCache(int slots) {
+        requireImmutable();
+        CachedWordSet cache = new CachedWordSet(dictionary, slots);
+        return new Dictionary(dictionary, cache, filter, frequencies);
+    }
+
+    /**
+     * Returns a Dictionary with the same words and a Bloom filter of them sized for the argued
+     * false-positive rate. isWord then rejects most non-words with a few bit tests, without
+     * looking them up. The filter is saved by compile.
+     *
+     * @param falsePositiveRate The fraction of non-words that get past the filter, between 0 and 1
+     *                          exclusive
+     * @return A Dictionary with a Bloom filter
+     * @throws IllegalArgumentException If the rate is out of range
+     * @throws IllegalStateException If this Dictionary was made by withOverlay
+     */
+    public Dictionary withBloomFilter(double falsePositiveRate) {
+        return withFilter(BloomFilter.forFalsePositiveRate(dictionary.size(), falsePositiveRate));
+    }
+
+    /**
+     * Returns a Dictionary with the same words and a Bloom filter of them with the argued memory
+     * budget.
+     *
+     * @param numBits The size of the filter in bits
+     * @param numHashes The number of bits set for each word; see BloomFilter.optimalNumHashes
+     * @return A Dictionary with a Bloom filter
+     * @throws IllegalArgumentException If numBits or numHashes is less than one
+     * @throws IllegalStateException If this Dictionary was made by withOverlay
+     */
+    public Dictionary withBloomFilter(long numBits, int numHashes) {
+        return withFilter(new BloomFilter(numBits, numHashes));
+    }
+
+    /** Fills the argued empty filter with the words and returns a Dictionary that uses it. */
+    private Dictionary withFilter(BloomFilter empty) {
+        requireImmutable();
+        for (String word : dictionary) {
+            empty.add(word);
+        }
+        return new Dictionary(dictionary, lookup, empty, frequencies);
+    }
+
+    /**
+     * Returns a Dictionary that starts with the same words and can then be changed with addWord and
+     * removeWord. The words are shared, not copied; changes are kept in an OverlayWordSet and
+     * folded into a new copy of the words in the background once enough of them accumulate.
+     * isWord never blocks on a change, and every corrector built over the returned Dictionary sees
+     * its changes. The returned Dictionary has no lookup cache or Bloom filter, since either would
+     * go stale as words change.
+     *
+     * @return A Dictionary that can be changed
+     * @see OverlayWordSet
+     */
+    public Dictionary withOverlay() {
+        if (dictionary instanceof OverlayWordSet) {
+            return this;
+        }
+        OverlayWordSet overlay = new OverlayWordSet(dictionary);
+        return new Dictionary(overlay, overlay, null, frequencies);
+    }
+
+    /**
+     * Returns a Dictionary with the same words, cache and filter that knows how often each word
+     * occurs. Frequencies are not saved by compile.
+     * <p>
+     * A word list with a count column, such as "the 23135851162" on each line, can serve both
+     * purposes: make ignores the counts, since they are not words, and WordFrequencies.make reads
+     * them.
+     *
+     * @param frequencies The counts of the words, which must not be added to afterwards
+     * @return A Dictionary with frequencies
+     * @throws IllegalArgumentException If the argument is null
+     */
+    public Dictionary withFrequencies(WordFrequencies frequencies) {
+        if (frequencies == null) {
+            throw new IllegalArgumentException();
+        }
+        return new Dictionary(dictionary, lookup, filter, frequencies);
+    }
+
+    /**
+     * Returns how often a word occurs, as given to withFrequencies, ignoring case.
+     *
+     * @param word The word
+     * @return The count of the word, or 0 if it is unknown, null, or this Dictionary has no
+     *         frequencies
+     */
+    public long getFrequency(CharSequence word) {
+        return frequencies == null ? 0 : frequencies.getCount(word);
+    }
+
+    /**
+     * Tests whether this Dictionary was given word frequencies by withFrequencies.
+     *
+     * @return True if getFrequency can return counts
+     */
+    public boolean hasFrequencies() {
+        return frequencies != null;
+    }
+
+    /**
+     * Adds a word to this Dictionary. The word is visible to isWord calls that start afterwards.
+     *
+     * @param word The word to add
+     * @return True if the word was not already in this Dictionary
+     * @throws IllegalArgumentException If the argument is null or not a valid word
+     * @throws UnsupportedOperationException If this Dictionary was not made by withOverlay
+     */
+    public boolean addWord(String word) {
+        if (word == null || !TokenScanner.isWord(word)) {
+            throw new IllegalArgumentException();
+        }
+        return overlay().add(word);
+    }
+
+    /**
+     * Removes a word from this Dictionary. The word is invisible to isWord calls that start
+     * afterwards.
+     *
+     * @param word The word to remove
+     * @return True if the word was in this Dictionary
+     * @throws IllegalArgumentException If the argument is null
+     * @throws UnsupportedOperationException If this Dictionary was not made by withOverlay
+     */
+    public boolean removeWord(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException();
+        }
+        return overlay().remove(word);
+    }
+
+    private OverlayWordSet overlay() {
+        if (!(dictionary instanceof OverlayWordSet)) {
+            throw new UnsupportedOperationException("Dictionary is not an overlay");
+        }
+        return (OverlayWordSet) dictionary;
+    }
+
+    private void requireImmutable() {
+        if (dictionary instanceof OverlayWordSet) {
+            throw new IllegalStateException("Cannot cache or filter words that can change");
+        }
+    }
+
+    /**
+     * Tests whether the argued word might be in this Dictionary, using only its Bloom filter. This
+     * is cheaper than isWord and lets correctors discard candidates early; a true result must still
+     * be confirmed with isWord.
+     *
+     * @param word The characters to check
+     * @return False if the word is certainly not in this Dictionary
+     */
+    public boolean mightBeWord(CharSequence word) {
+        if (word == null) {
+            return false;
+        }
+        return filter == null || filter.mightContain(word);
+    }
+
+    /**
+     * Returns the fraction of isWord calls answered by the lookup cache of this Dictionary.
+     *
+     * @return The hit rate, or 0 if this Dictionary has no lookup cache or has not been used
+     */
+    public double getLookupCacheHitRate() {
+        if (lookup instanceof CachedWordSet) {
+            return ((CachedWordSet) lookup).getHitRate();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the storage backend of this Dictionary, for correctors that index or walk the words.
+     * The result must not be modified.
+     *
+     * @return The words of this Dictionary
+     */
+    WordSet getWordSet() {
+        return dictionary;
+    }
+
     /**
      * Returns the number of unique words in this Dictionary. This count is case insensitive: if
      * both "DOGS" and "dogs" appeared in the input file, it must only be counted once in the sum.
@@ -87,6 +394,51 @@ public class Dictionary {
             return false;
         }
 
-        return dictionary.contains(word.toLowerCase());
+        if (filter != null && !filter.mightContain(word)) {
+            return false;
+        }
+        return lookup.contains(word);
+    }
+
+    /**
+     * Tests whether the characters in a region of a char array form a word in this Dictionary.
+     * This behaves exactly like isWord(String) but lets correctors probe candidates they build in
+     * a scratch buffer without making a String of each.
+     *
+     * @param chars The array holding the word
+     * @param offset Index of the first character of the word
+     * @param length Number of characters in the word
+     * @return Whether the word is in the dictionary
+     * @throws IndexOutOfBoundsException If the region is not within the array
+     */
+    public boolean isWord(char[] chars, int offset, int length) {
+        if (chars == null) {
+            return false;
+        }
+        if (offset < 0 || length < 0 || offset > chars.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (filter != null && !filter.mightContain(chars, offset, length)) {
+            return false;
+        }
+        return lookup.contains(chars, offset, length);
+    }
+
+    /**
+     * Tests whether the argued characters form a word in this Dictionary. This behaves exactly like
+     * isWord(String) and lets scanners pass the token views they hand out.
+     *
+     * @param word The characters to check
+     * @return Whether the word is in the dictionary
+     */
+    public boolean isWord(CharSequence word) {
+        if (word == null) {
+            return false;
+        }
+
+        if (filter != null && !filter.mightContain(word)) {
+            return false;
+        }
+        return lookup.contains(word);
     }
 }
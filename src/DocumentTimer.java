@@ -0,0 +1,97 @@
+import java.util.List;
+
+/**
+ * Measures one document for a SpellCheckListener. The checking loop marks the end of each stage
+ * with lap, which charges the time since the previous mark to that stage. A DocumentTimer is used
+ * by one thread, except for merge.
+ */
+final class DocumentTimer {
+  private static final SpellCheckListener.Stage[] STAGES = SpellCheckListener.Stage.values();
+
+  private final SpellCheckListener listener;
+  private final Corrector corrector;
+  private final long[] stageNanos = new long[STAGES.length];
+  private long tokens;
+  private long words;
+  private long misspellings;
+  private long replacements;
+  private long last;
+
+  /**
+   * Starts timing a document.
+   *
+   * @param listener Receives the measurements
+   * @param corrector The Corrector whose latency is measured
+   */
+  DocumentTimer(SpellCheckListener listener, Corrector corrector) {
+    this.listener = listener;
+    this.corrector = corrector;
+    this.last = System.nanoTime();
+  }
+
+  /**
+   * Counts a token and ends the TOKENIZE stage.
+   *
+   * @param word Whether the token is a word
+   */
+  void scanned(boolean word) {
+    tokens++;
+    if (word) {
+      words++;
+    }
+    lap(SpellCheckListener.Stage.TOKENIZE);
+  }
+
+  /**
+   * Charges the time since the previous mark to the argued stage.
+   *
+   * @param stage The stage that just ended
+   * @return The time charged, in nanoseconds
+   */
+  long lap(SpellCheckListener.Stage stage) {
+    long now = System.nanoTime();
+    long elapsed = now - last;
+    stageNanos[stage.ordinal()] += elapsed;
+    last = now;
+    return elapsed;
+  }
+
+  /**
+   * Ends the DECIDE stage of a misspelled word and reports the word to the listener. The time the
+   * listener takes is not charged to any stage.
+   *
+   * @param word The misspelled word
+   * @param suggestions Its sorted suggestions
+   * @param replacement The text chosen to replace it
+   * @param correctorNanos The time of its CORRECT stage
+   */
+  void misspelled(String word, List<String> suggestions, String replacement, long correctorNanos) {
+    lap(SpellCheckListener.Stage.DECIDE);
+    misspellings++;
+    if (!replacement.equals(word)) {
+      replacements++;
+    }
+    listener.misspelled(corrector, word, suggestions, replacement, correctorNanos);
+    last = System.nanoTime();
+  }
+
+  /**
+   * Adds the counts and times of a part of the document measured by another timer.
+   *
+   * @param part The timer of the part
+   */
+  synchronized void merge(DocumentTimer part) {
+    tokens += part.tokens;
+    words += part.words;
+    misspellings += part.misspellings;
+    replacements += part.replacements;
+    for (int i = 0; i < stageNanos.length; i++) {
+      stageNanos[i] += part.stageNanos[i];
+    }
+  }
+
+  /** Reports the document to the listener. */
+  synchronized void finish() {
+    listener.documentChecked(tokens, words, misspellings, replacements, stageNanos.clone());
+  }
+}
@@ -0,0 +1,161 @@
+import java.util.Arrays;
+
+/**
+ * Computes bounded edit distances between words.
+ *
+ * <p>The Levenshtein distance is the smallest number of single-character insertions, deletions
+ * and substitutions that turn one word into the other. The Damerau-Levenshtein distance also
+ * counts a transposition of two adjacent characters as a single edit. Both are metrics, so they
+ * can be used to prune searches with the triangle inequality. Every method takes a bound and gives
+ * up as soon as the distance is certain to exceed it, returning bound + 1.
+ *
+ * <p>An EditDistance keeps its table rows between calls so that repeated comparisons do not
+ * allocate. It is therefore not thread safe: correctors create one per query.
+ */
+public class EditDistance {
+  private int[] previous = new int[32];
+  private int[] current = new int[32];
+  private int[] table = new int[256];
+  private char[] seenChars = new char[32];
+  private int[] seenRows = new int[32];
+  private int numSeen;
+
+  /**
+   * Returns the Levenshtein distance between two words, compared character by character, or
+   * max + 1 if it is greater than max.
+   *
+   * @param a The first word
+   * @param b The second word
+   * @param max The largest distance of interest
+   * @return The distance between the words, capped at max + 1
+   */
+  public int levenshtein(CharSequence a, CharSequence b, int max) {
+    int n = a.length();
+    int m = b.length();
+    if (Math.abs(n - m) > max) {
+      return max + 1;
+    }
+    ensureCapacity(m + 1);
+    int[] prev = previous;
+    int[] cur = current;
+    for (int j = 0; j <= m; j++) {
+      prev[j] = j;
+    }
+    for (int i = 1; i <= n; i++) {
+      char ca = a.charAt(i - 1);
+      cur[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= m; j++) {
+        int d = prev[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+        d = Math.min(d, prev[j] + 1);
+        d = Math.min(d, cur[j - 1] + 1);
+        cur[j] = d;
+        rowMin = Math.min(rowMin, d);
+      }
+      if (rowMin > max) {
+        return max + 1;
+      }
+      int[] swap = prev;
+      prev = cur;
+      cur = swap;
+    }
+    return Math.min(prev[m], max + 1);
+  }
+
+  /**
+   * Returns the (unrestricted) Damerau-Levenshtein distance between two words, compared character
+   * by character, or max + 1 if it is greater than max.
+   *
+   * <p>This is the algorithm of Lowrance and Wagner: a transposition may be combined with
+   * insertions and deletions between the transposed characters, which keeps the distance a
+   * metric.
+   *
+   * @param a The first word
+   * @param b The second word
+   * @param max The largest distance of interest
+   * @return The distance between the words, capped at max + 1
+   */
+  public int damerau(CharSequence a, CharSequence b, int max) {
+    int n = a.length();
+    int m = b.length();
+    if (Math.abs(n - m) > max) {
+      return max + 1;
+    }
+    int width = m + 2;
+    if (table.length < (n + 2) * width) {
+      table = new int[(n + 2) * width * 2];
+    }
+    int[] h = table;
+    int infinity = n + m;
+    h[0] = infinity;
+    for (int i = 0; i <= n; i++) {
+      h[(i + 1) * width] = infinity;
+      h[(i + 1) * width + 1] = i;
+    }
+    for (int j = 0; j <= m; j++) {
+      h[j + 1] = infinity;
+      h[width + j + 1] = j;
+    }
+    numSeen = 0;
+
+    for (int i = 1; i <= n; i++) {
+      char ca = a.charAt(i - 1);
+      int lastMatchColumn = 0;
+      int rowMin = Integer.MAX_VALUE;
+      for (int j = 1; j <= m; j++) {
+        char cb = b.charAt(j - 1);
+        int lastRow = lastRowOf(cb);
+        int lastColumn = lastMatchColumn;
+        int cost = 1;
+        if (ca == cb) {
+          cost = 0;
+          lastMatchColumn = j;
+        }
+        int d = h[i * width + j] + cost;
+        d = Math.min(d, h[(i + 1) * width + j] + 1);
+        d = Math.min(d, h[i * width + j + 1] + 1);
+        d = Math.min(d, h[lastRow * width + lastColumn]
+            + (i - lastRow - 1) + 1 + (j - lastColumn - 1));
+        h[(i + 1) * width + j + 1] = d;
+        rowMin = Math.min(rowMin, d);
+      }
+      if (m > 0 && Math.min(rowMin, i) > max) {
+        return max + 1;
+      }
+      setLastRow(ca, i);
+    }
+    return Math.min(h[(n + 1) * width + m + 1], max + 1);
+  }
+
+  /** Returns the last row of the first word in which the argued character appeared, or 0. */
+  private int lastRowOf(char c) {
+    for (int k = 0; k < numSeen; k++) {
+      if (seenChars[k] == c) {
+        return seenRows[k];
+      }
+    }
+    return 0;
+  }
+
+  private void setLastRow(char c, int row) {
+    for (int k = 0; k < numSeen; k++) {
+      if (seenChars[k] == c) {
+        seenRows[k] = row;
+        return;
+      }
+    }
+    if (numSeen == seenChars.length) {
+      seenChars = Arrays.copyOf(seenChars, numSeen * 2);
+      seenRows = Arrays.copyOf(seenRows, numSeen * 2);
+    }
+    seenChars[numSeen] = c;
+    seenRows[numSeen++] = row;
+  }
+
+  private void ensureCapacity(int length) {
+    if (previous.length < length) {
+      previous = new int[length * 2];
+      current = new int[length * 2];
+    }
+  }
+}
@@ -1,5 +1,18 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * A Corrector whose spelling suggestions are given in a text file.
@@ -7,9 +20,16 @@ import java.util.*;
  * <p>One way to get corrections for a misspelled word is to consult an external resource. This kind
  * of Corrector uses a file that contains pairs of words on each line (a misspelled word and a
  * correction for that misspelling) to generate corrections.
+ *
+ * <p>Once read, the corrections are held in a compact read-only CorrectionTable. Each distinct
+ * correction is stored once, and the set of corrections of each misspelling is built up front, so
+ * looking up a lowercase misspelling allocates nothing.
  */
 public class FileCorrector extends Corrector {
-  private Map<String, Set<String>> mapToCorrect;
+  /** Files larger than this many bytes are read in chunks of about this size in parallel. */
+  public static final long PARALLEL_CHUNK_SIZE = 4L << 20;
+
+  private final CorrectionTable table;
 
   /**
    * A special purpose exception class to indicate errors when reading the input for the
@@ -19,6 +39,16 @@ public class FileCorrector extends Corrector {
     public FormatException(String msg) {
       super(msg);
     }
+
+    /**
+     * Constructs a FormatException for the argued line of the input.
+     *
+     * @param lineNumber The number of the invalid line, counting from one
+     * @param reason What is wrong with the line
+     */
+    public FormatException(long lineNumber, String reason) {
+      super("Line " + lineNumber + ": " + reason);
+    }
   }
 
   /**
@@ -80,6 +110,9 @@ public class FileCorrector extends Corrector {
    *
    * <p>
    *
+   * <p>Lines may end with '\n', '\r' or "\r\n". The message of a FormatException names the
+   * invalid line, counting from one.
+   *
    * @param r The sequence of characters to parse
    * @throws IOException If error while reading
    * @throws FileCorrector.FormatException If an invalid line is encountered
@@ -89,71 +122,229 @@ public class FileCorrector extends Corrector {
     if (r == null) {
       throw new IllegalArgumentException();
     }
-    mapToCorrect = new TreeMap<>();
+    CorrectionTable.Builder builder = new CorrectionTable.Builder();
     BufferedReader bf = new BufferedReader(r);
-    String readLine = bf.readLine();
+    List<String> pair = new ArrayList<>(2);
+    long lineNumber = 0;
+    String line;
+    while ((line = bf.readLine()) != null) {
+      lineNumber++;
+      String error = parseLine(line, 0, line.length(), pair);
+      if (error != null) {
+        throw new FormatException(lineNumber, error);
+      }
+      if (!pair.isEmpty()) {
+        builder.add(pair.get(0), pair.get(1));
+        pair.clear();
+      }
+    }
+    table = builder.build();
+  }
 
-    try {
-      while (readLine != null) {
+  /** Constructs a FileCorrector over corrections that have already been read. */
+  private FileCorrector(CorrectionTable table) {
+    this.table = table;
+  }
 
-        readLine = readLine.trim();
-          
-          if(readLine.length() != 0) {
+  /**
+   * Constructs a FileCorrecotr from a file.
+   *
+   * <p>The file is read in the platform's default charset, in parallel if it is large; see load.
+   *
+   * @param filename Location of file from which to read
+   * @return A FileCorrector with corrections from the argued file
+   * @throws FileNotFoundException If the file does not exist
+   * @throws IOException If error while reading
+   * @throws FileCorrector.FormatException If an invalid line is encountered
+   */
+  public static FileCorrector make(String filename) throws IOException, FormatException {
+    if (filename == null || !new File(filename).isFile()) {
+      throw new FileNotFoundException(filename);
+    }
+    return load(Paths.get(filename), Charset.defaultCharset());
+  }
 
-        if (!readLine.matches("(.*),(.*)")) {
-          throw new FileCorrector.FormatException("no commas");
-        }
+  /**
+   * Constructs a FileCorrector from a file in the argued charset, with the same rules as
+   * FileCorrector(Reader).
+   *
+   * <p>A file larger than PARALLEL_CHUNK_SIZE, in a charset that encodes ASCII as itself such as
+   * UTF-8, is split into chunks that each end just after a '\n' byte, which is never part of a
+   * multi-byte character. The chunks are decoded and parsed in parallel on the common fork/join
+   * pool, and their pairs are then added to one table in file order. If several lines are invalid,
+   * the exception reports the first of them, as a sequential read would.
+   *
+   * @param file The file from which to read
+   * @param charset The encoding of the file
+   * @return A FileCorrector with corrections from the argued file
+   * @throws IOException If error while reading
+   * @throws FileCorrector.FormatException If an invalid line is encountered
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public static FileCorrector load(Path file, Charset charset) throws IOException, FormatException {
+    if (file == null || charset == null) {
+      throw new IllegalArgumentException();
+    }
+    boolean asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+        || charset.equals(StandardCharsets.US_ASCII)
+        || charset.equals(StandardCharsets.ISO_8859_1);
+    try (FileChannel channel = FileChannel.open(file)) {
+      long size = channel.size();
+      if (!asciiCompatible || size <= PARALLEL_CHUNK_SIZE) {
+        // Decode like FileReader does, replacing malformed input rather than failing.
+        Reader r = Channels.newReader(channel, charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE), -1);
+        return new FileCorrector(r);
+      }
 
-        int firstCommaIndex = readLine.indexOf(",");
-        String firstSection = (readLine.substring(0, firstCommaIndex)).trim();
-        String secondSection = (readLine.substring(firstCommaIndex + 1, readLine.length())).trim();
+      List<Callable<Chunk>> tasks = new ArrayList<>();
+      long start = 0;
+      while (start < size) {
+        long end = nextLineStart(channel, Math.min(start + PARALLEL_CHUNK_SIZE, size), size);
+        long chunkStart = start;
+        tasks.add(() -> parseChunk(channel, chunkStart, end, charset));
+        start = end;
+      }
 
-        if (secondSection.contains(",")) {
-          throw new FileCorrector.FormatException("Too Many commas");
+      CorrectionTable.Builder builder = new CorrectionTable.Builder();
+      long linesBefore = 0;
+      for (Future<Chunk> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+        Chunk chunk;
+        try {
+          chunk = future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IllegalStateException(e.getCause());
+        }
+        if (chunk.error != null) {
+          throw new FormatException(linesBefore + chunk.lines, chunk.error);
         }
+        for (int i = 0; i < chunk.pairs.size(); i += 2) {
+          builder.add(chunk.pairs.get(i), chunk.pairs.get(i + 1));
+        }
+        linesBefore += chunk.lines;
+      }
+      return new FileCorrector(builder.build());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
 
-        if (TokenScanner.isWord(firstSection) && TokenScanner.isWord(secondSection)) {
+  /**
+   * The pairs parsed from one chunk of a file, each misspelling followed by its correction. If
+   * the chunk has an invalid line, parsing stops there, error says what is wrong with it, and lines
+   * is its number within the chunk.
+   */
+  private static class Chunk {
+    private final List<String> pairs = new ArrayList<>();
+    private long lines;
+    private String error;
+  }
 
-          if (!mapToCorrect.containsKey(firstSection.toLowerCase())) {
-            Set<String> corrections = new TreeSet<>();
-            corrections.add(secondSection.toLowerCase());
-            mapToCorrect.put(firstSection.toLowerCase(), corrections);
-          } else {
-            mapToCorrect.get(firstSection.toLowerCase()).add(secondSection.toLowerCase());
-          }
-        } else {
-          throw new FileCorrector.FormatException("Line contains nonwords");
+  /** Decodes and parses the bytes [start, end) of a file, which begin and end on a line. */
+  private static Chunk parseChunk(FileChannel channel, long start, long end, Charset charset)
+      throws IOException {
+    ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    CharBuffer text = charset.decode(bytes);
+    Chunk chunk = new Chunk();
+    int length = text.length();
+    int lineStart = 0;
+    while (lineStart < length && chunk.error == null) {
+      int lineEnd = lineStart;
+      while (lineEnd < length && text.get(lineEnd) != '\n' && text.get(lineEnd) != '\r') {
+        lineEnd++;
+      }
+      chunk.lines++;
+      chunk.error = parseLine(text, lineStart, lineEnd, chunk.pairs);
+      lineStart = lineEnd + 1;
+      if (lineEnd + 1 < length && text.get(lineEnd) == '\r' && text.get(lineEnd + 1) == '\n') {
+        lineStart++;
+      }
+    }
+    return chunk;
+  }
+
+  /** Returns the offset just past the first '\n' at or after from, or end if there is none. */
+  private static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(8192);
+    long position = from;
+    while (position < end) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n <= 0) {
+        break;
+      }
+      for (int i = 0; i < n; i++) {
+        if (buffer.get(i) == '\n') {
+          return Math.min(position + i + 1, end);
         }
-          }
-        readLine = bf.readLine();
       }
-    } catch (IOException e) {
-      throw new IOException();
+      position += n;
     }
+    return end;
   }
 
   /**
-   * Constructs a FileCorrecotr from a file.
+   * Parses the line in [start, end) of the argued text and appends its lowercase misspelling and
+   * correction to pairs. Blank lines are skipped.
    *
-   * @param filename Location of file from which to read
-   * @return A FileCorrector with corrections from the argued file
-   * @throws FileNotFoundException If the file does not exist
-   * @throws IOException If error while reading
-   * @throws FileCorrector.FormatException If an invalid line is encountered
+   * @return null if the line was valid, or else what is wrong with it
    */
-  public static FileCorrector make(String filename) throws IOException, FormatException {
-    Reader r = new FileReader(filename);
-    FileCorrector fc;
-
-    try {
-      fc = new FileCorrector(r);
-    } finally {
-      if (r != null) {
-        r.close();
+  private static String parseLine(
+      CharSequence text, int start, int end, List<String> pairs) {
+    // Whitespace is anything up to ' ', as for String.trim.
+    while (start < end && text.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && text.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      return null;
+    }
+    int comma = start;
+    while (comma < end && text.charAt(comma) != ',') {
+      comma++;
+    }
+    if (comma == end) {
+      return "no commas";
+    }
+    for (int i = comma + 1; i < end; i++) {
+      if (text.charAt(i) == ',') {
+        return "too many commas";
       }
     }
+    int keyEnd = comma;
+    while (keyEnd > start && text.charAt(keyEnd - 1) <= ' ') {
+      keyEnd--;
+    }
+    int valueStart = comma + 1;
+    while (valueStart < end && text.charAt(valueStart) <= ' ') {
+      valueStart++;
+    }
+    if (!isWord(text, start, keyEnd) || !isWord(text, valueStart, end)) {
+      return "line contains nonwords";
+    }
+    pairs.add(HashWordSet.lowerCase(text.subSequence(start, keyEnd).toString()));
+    pairs.add(HashWordSet.lowerCase(text.subSequence(valueStart, end).toString()));
+    return null;
+  }
 
-    return fc;
+  /** Tests whether the argued region of a text is a word, as TokenScanner.isWord would. */
+  private static boolean isWord(CharSequence text, int start, int end) {
+    if (start == end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      if (!TokenScanner.isWordChar(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -163,19 +354,24 @@ public class FileCorrector extends Corrector {
    * <p>For any input that is *not* a valid word, throw an IllegalArgumentException. A valid word is
    * any sequence of letters (as determined by Character.isLetter) or apostrophes characters.
    *
+   * <p>A misspelling that does not start with a capital letter gets the shared, unmodifiable set of
+   * lowercase corrections read from the file.
+   *
    * @param wrong The misspelled word
    * @return A (potentially empty) set of proposed corrections
    * @throws IllegalArgumentException If the input is not a valid word (i.e. not composed of only
    *     letters and/or apostrophes)
    */
   public Set<String> getCorrections(String wrong) {
-    Set<String> corrections = new TreeSet<String>();
-          if (wrong == null || !TokenScanner.isWord(wrong)) {
+    if (wrong == null || !TokenScanner.isWord(wrong)) {
       throw new IllegalArgumentException();
     }
-      String searchableWrong = wrong.toLowerCase();
-    if (mapToCorrect.containsKey(searchableWrong)) {
-      corrections = matchCase(wrong, mapToCorrect.get(searchableWrong));
+    Set<String> corrections = table.get(wrong);
+    if (corrections == null) {
+      return Collections.emptySet();
+    }
+    if (wrong.length() > 0 && Character.isUpperCase(wrong.charAt(0))) {
+      return matchCase(wrong, corrections);
     }
     return corrections;
   }
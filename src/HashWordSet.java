@@ -0,0 +1,236 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A WordSet backed by an open-addressing hash table of lowercase words.
+ *
+ * <p>This is the default storage of a Dictionary. Lookups hash their argument case-insensitively
+ * character by character, so contains never builds a lowercased copy of the word it is given.
+ * Collisions are resolved by linear probing, and the table doubles whenever it is two-thirds full.
+ */
+public class HashWordSet implements WordSet {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private String[] words;
+  private int[] hashes;
+  private int mask;
+  private int size;
+
+  /** Constructs an empty HashWordSet. */
+  public HashWordSet() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty HashWordSet that can hold the argued number of words without resizing.
+   *
+   * @param expectedWords The number of words expected
+   * @throws IllegalArgumentException If the argued number is negative
+   */
+  public HashWordSet(int expectedWords) {
+    if (expectedWords < 0) {
+      throw new IllegalArgumentException();
+    }
+    int capacity = Integer.highestOneBit(Math.max(expectedWords * 3 / 2, 8) - 1) << 1;
+    words = new String[capacity];
+    hashes = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  public boolean add(CharSequence word) {
+    int hash = hash(word);
+    int i = hash & mask;
+    while (words[i] != null) {
+      if (hashes[i] == hash && equalsIgnoreCase(words[i], word)) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+    words[i] = lowerCase(word);
+    hashes[i] = hash;
+    size++;
+    if (size * 3 > words.length * 2) {
+      resize();
+    }
+    return true;
+  }
+
+  public boolean contains(CharSequence word) {
+    int hash = hash(word);
+    int i = hash & mask;
+    String candidate;
+    while ((candidate = words[i]) != null) {
+      if (hashes[i] == hash && equalsIgnoreCase(candidate, word)) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  public boolean contains(char[] chars, int offset, int length) {
+    int hash = hash(chars, offset, length);
+    int i = hash & mask;
+    String candidate;
+    while ((candidate = words[i]) != null) {
+      if (hashes[i] == hash && equalsIgnoreCase(candidate, chars, offset, length)) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int next = skipEmpty(0);
+
+      public boolean hasNext() {
+        return next < words.length;
+      }
+
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        String word = words[next];
+        next = skipEmpty(next + 1);
+        return word;
+      }
+
+      private int skipEmpty(int i) {
+        while (i < words.length && words[i] == null) {
+          i++;
+        }
+        return i;
+      }
+    };
+  }
+
+  /**
+   * Computes the case-insensitive hash of a word. Two sequences that are equal ignoring case (per
+   * Character.toLowerCase) always have the same hash.
+   *
+   * @param word The word to hash
+   * @return The hash of the lowercase form of the word
+   */
+  static int hash(CharSequence word) {
+    int h = 0;
+    for (int i = 0; i < word.length(); i++) {
+      h = 31 * h + Character.toLowerCase(word.charAt(i));
+    }
+    return mix(h);
+  }
+
+  /**
+   * Computes the case-insensitive hash of the word in a region of a char array, equal to the hash
+   * of the same characters as a CharSequence.
+   *
+   * @param chars The array holding the word
+   * @param offset Index of the first character of the word
+   * @param length Number of characters in the word
+   * @return The hash of the lowercase form of the word
+   */
+  static int hash(char[] chars, int offset, int length) {
+    int h = 0;
+    for (int i = offset; i < offset + length; i++) {
+      h = 31 * h + Character.toLowerCase(chars[i]);
+    }
+    return mix(h);
+  }
+
+  /** Spreads the bits of a polynomial string hash so that masking by a power of two works well. */
+  private static int mix(int h) {
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Tests whether a stored lowercase word matches the argued word, ignoring the case of the
+   * argument.
+   *
+   * @param lower A lowercase word
+   * @param word The word to compare it with
+   * @return True if the words are equal ignoring case
+   */
+  static boolean equalsIgnoreCase(String lower, CharSequence word) {
+    int length = lower.length();
+    if (word.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (lower.charAt(i) != Character.toLowerCase(word.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tests whether a stored lowercase word matches the word in a region of a char array, ignoring
+   * the case of the region.
+   *
+   * @param lower A lowercase word
+   * @param chars The array holding the word to compare it with
+   * @param offset Index of the first character of the word
+   * @param length Number of characters in the word
+   * @return True if the words are equal ignoring case
+   */
+  static boolean equalsIgnoreCase(String lower, char[] chars, int offset, int length) {
+    if (lower.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (lower.charAt(i) != Character.toLowerCase(chars[offset + i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the lowercase form of a word, lowering one character at a time so that it agrees with
+   * hash and equalsIgnoreCase. A String that is already lowercase is returned as is.
+   *
+   * @param word The word to lowercase
+   * @return The lowercase word
+   */
+  static String lowerCase(CharSequence word) {
+    int length = word.length();
+    int i = 0;
+    while (i < length && Character.toLowerCase(word.charAt(i)) == word.charAt(i)) {
+      i++;
+    }
+    if (i == length && word instanceof String) {
+      return (String) word;
+    }
+    char[] lower = new char[length];
+    for (int j = 0; j < length; j++) {
+      lower[j] = Character.toLowerCase(word.charAt(j));
+    }
+    return new String(lower);
+  }
+
+  /** Doubles the table and reinserts every word. */
+  private void resize() {
+    String[] oldWords = words;
+    int[] oldHashes = hashes;
+    words = new String[oldWords.length * 2];
+    hashes = new int[oldWords.length * 2];
+    mask = words.length - 1;
+    for (int j = 0; j < oldWords.length; j++) {
+      if (oldWords[j] != null) {
+        int i = oldHashes[j] & mask;
+        while (words[i] != null) {
+          i = (i + 1) & mask;
+        }
+        words[i] = oldWords[j];
+        hashes[i] = oldHashes[j];
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies with a fixed relative precision, in the style of HdrHistogram.
+ *
+ * <p>Values below 32 have a bucket each. Above that, every power of two is split into 32 equal
+ * buckets, so a value is known to within about 3% however large it is, and the whole range of a
+ * long fits in 1920 counters. Recording a value is a few bit operations and an atomic
+ * increment, with no allocation, so many threads can record at once.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (65 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value.
+   *
+   * @param value The value, such as a latency in nanoseconds; negative values count as zero
+   */
+  public void record(long value) {
+    value = Math.max(value, 0);
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    if (value > max.get()) {
+      max.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * Returns the number of values recorded.
+   *
+   * @return The number of values
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the mean of the values recorded.
+   *
+   * @return The exact mean, or 0 if no values were recorded
+   */
+  public double getMean() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Returns the largest value recorded.
+   *
+   * @return The exact maximum, or 0 if no values were recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns a value that the argued percentage of the recorded values do not exceed, to within
+   * the precision of the histogram.
+   *
+   * @param percentile The percentage, from 0 to 100
+   * @return The highest value of the bucket holding the percentile, or 0 if no values were
+   *     recorded
+   * @throws IllegalArgumentException If the percentile is out of range
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException();
+    }
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValue(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /** Forgets every recorded value. Values recorded concurrently may or may not be kept. */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.set(0);
+  }
+
+  public String toString() {
+    return String.format("count=%d mean=%.0f p50=%d p90=%d p99=%d p99.9=%d max=%d", getCount(),
+        getMean(), getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99),
+        getValueAtPercentile(99.9), getMax());
+  }
+
+  /** Returns the bucket of a non-negative value. */
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /** Returns the largest value that falls in a bucket. */
+  static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+    long highest = ((mantissa + 1) << shift) - 1;
+    return highest < 0 ? Long.MAX_VALUE : highest;
+  }
+}
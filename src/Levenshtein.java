@@ -1,5 +1,6 @@
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * A smart Corrector that uses "edit distance" to generate corrections.
@@ -19,19 +20,39 @@ import java.util.Set;
  * <p>
  * This Corrector suggests any words in the dictionary that are exactly a distance of one edit away
  * from the given incorrect word.
+ * <p>
+ * Corrections are not found by generating every candidate edit and looking each one up. Instead,
+ * the dictionary is held as a Dawg, and getCorrections walks it depth first while keeping one row
+ * of the edit-distance table per level of the walk. A branch is abandoned as soon as every entry
+ * of its row exceeds one, so only the few paths near the misspelling are ever visited and no
+ * candidate Strings are built. The getDeletions, getSubstitutions and getInsertions generators are
+ * kept for callers that want the raw candidate sets.
+ * <p>
+ * If the Dictionary was made by withOverlay, words added to it are kept in a second, small Dawg
+ * that is walked as well, and words removed from it are dropped from the results.
  */
 public class Levenshtein extends Corrector {
-    
+    private static final int MAX_DISTANCE = 1;
+    private static final int UNREACHABLE = MAX_DISTANCE + 1;
+
+    private final Dictionary dict;
+    private final WordIndex<Dawg> words;
 
     /**
     * Constructs a Levenshtein Corrector using the argued Dictionary. Should throw an
     * <code>IllegalArgumentException</code> if the aruged Dictionary is null.
+    * <p>
+    * If the Dictionary is not already stored as a Dawg, one is built from its words here.
     *
     * @param dict The Dictionary for this corrector
     * @throws IllegalArgumentException If the argued Dictionary is null
     */
     public Levenshtein(Dictionary dict) {
-        throw new UnsupportedOperationException();
+        if (dict == null) {
+            throw new IllegalArgumentException();
+        }
+        this.dict = dict;
+        words = new WordIndex<>(dict, set -> set instanceof Dawg ? (Dawg) set : Dawg.build(set));
     }
 
     /**
@@ -42,7 +63,11 @@ public class Levenshtein extends Corrector {
      * @return All the words that are one deletion away from s
      */
     public Set<String> getDeletions(String s) {
-        throw new UnsupportedOperationException();
+        Set<String> deletions = new HashSet<>();
+        for (int i = 0; i < s.length(); i++) {
+            deletions.add(s.substring(0, i) + s.substring(i + 1));
+        }
+        return deletions;
     }
 
     /**
@@ -54,7 +79,19 @@ public class Levenshtein extends Corrector {
      * @return All the words that are one substitution away from s
      */
     public Set<String> getSubstitutions(String s) {
-        throw new UnsupportedOperationException();
+        Set<String> substitutions = new HashSet<>();
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char original = chars[i];
+            for (char c = 'a'; c <= 'z'; c++) {
+                if (c != original) {
+                    chars[i] = c;
+                    substitutions.add(new String(chars));
+                }
+            }
+            chars[i] = original;
+        }
+        return substitutions;
     }
 
     
@@ -67,7 +104,15 @@ public class Levenshtein extends Corrector {
      * @return All words that are one insertion away from s
      */
     public Set<String> getInsertions(String s) {
-        throw new UnsupportedOperationException();
+        Set<String> insertions = new HashSet<>();
+        for (int i = 0; i <= s.length(); i++) {
+            String before = s.substring(0, i);
+            String after = s.substring(i);
+            for (char c = 'a'; c <= 'z'; c++) {
+                insertions.add(before + c + after);
+            }
+        }
+        return insertions;
     }
 
     /**
@@ -86,6 +131,77 @@ public class Levenshtein extends Corrector {
      *                                  letters and/or apostrophes) 
      */
     public Set<String> getCorrections(String wrong) {
-        throw new UnsupportedOperationException();
+        if (wrong == null || !TokenScanner.isWord(wrong)) {
+            throw new IllegalArgumentException();
+        }
+        char[] lower = HashWordSet.lowerCase(wrong).toCharArray();
+        Set<String> found = new TreeSet<>();
+        for (Dawg dawg : words.indexes()) {
+            new Search(dawg, lower, found).walk(dawg.root(), 0);
+        }
+        if (words.isOverlay()) {
+            found.removeIf(word -> !dict.isWord(word));
+        }
+        return matchCase(wrong, found);
+    }
+
+    /**
+     * The state of one walk of a Dawg. The edit distance counts the same edits as the three
+     * generators: a deletion of any character of the misspelling, or an insertion or substitution
+     * of a letter a-z. Row d of the table holds the distances between the path spelled by the
+     * first d edges of the walk and every prefix of the misspelling.
+     */
+    private static class Search {
+        private final Dawg words;
+        private final char[] wrong;
+        private final int[][] rows;
+        private final char[] path;
+        private final Set<String> found;
+
+        Search(Dawg words, char[] wrong, Set<String> found) {
+            this.words = words;
+            this.wrong = wrong;
+            this.found = found;
+            // Paths longer than the misspelling plus MAX_DISTANCE are always pruned.
+            rows = new int[wrong.length + MAX_DISTANCE + 1][wrong.length + 1];
+            path = new char[wrong.length + MAX_DISTANCE];
+            for (int j = 0; j <= wrong.length; j++) {
+                rows[0][j] = Math.min(j, UNREACHABLE);
+            }
+        }
+
+        void walk(int state, int depth) {
+            int[] previous = rows[depth];
+            int[] row = rows[depth + 1];
+            for (int e = words.edgeStart(state); e < words.edgeEnd(state); e++) {
+                char c = words.edgeLabel(e);
+                boolean letter = c >= 'a' && c <= 'z';
+                int best = row[0] = letter ? Math.min(previous[0] + 1, UNREACHABLE) : UNREACHABLE;
+                for (int j = 1; j <= wrong.length; j++) {
+                    int d = row[j - 1] + 1;
+                    if (c == wrong[j - 1]) {
+                        d = Math.min(d, previous[j - 1]);
+                    } else if (letter) {
+                        d = Math.min(d, previous[j - 1] + 1);
+                    }
+                    if (letter) {
+                        d = Math.min(d, previous[j] + 1);
+                    }
+                    row[j] = Math.min(d, UNREACHABLE);
+                    best = Math.min(best, row[j]);
+                }
+                if (best > MAX_DISTANCE) {
+                    continue;
+                }
+                path[depth] = c;
+                int target = words.edgeTarget(e);
+                if (row[wrong.length] == MAX_DISTANCE && words.isFinal(target)) {
+                    found.add(new String(path, 0, depth + 1));
+                }
+                if (depth + 1 < path.length) {
+                    walk(target, depth + 1);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Scans the tokens of a UTF-8 file by memory-mapping it instead of reading it through a Reader.
+ *
+ * <p>Tokens follow the same rules as TokenScanner: a token is a maximal run of word characters or
+ * a maximal run of non-word characters. Unlike TokenScanner, a MappedTokenScanner reports each
+ * token as a span of bytes (tokenOffset() and tokenByteLength()) in the file. Only word tokens are
+ * decoded into characters; non-word stretches are skipped over without being copied anywhere.
+ *
+ * <p>The file is mapped in windows of at most WINDOW_SIZE bytes, so files larger than 2 GB can be
+ * scanned. Malformed UTF-8 is treated as non-word characters, one byte at a time, and characters
+ * outside the Basic Multilingual Plane are non-word characters, just as TokenScanner sees their
+ * surrogate pairs.
+ */
+public class MappedTokenScanner {
+  private static final long WINDOW_SIZE = 64L << 20;
+
+  private final FileChannel channel;
+  private final long end;
+  private MappedByteBuffer window;
+  private long windowStart;
+  private int windowLength;
+
+  private long position;
+  private int pendingChar = -1;
+  private int pendingLength;
+
+  private long tokenOffset;
+  private long tokenByteLength;
+  private boolean tokenIsWord;
+  private char[] token = new char[64];
+  private int tokenLength;
+  private final CharSlice tokenView = new CharSlice();
+
+  /**
+   * Creates a MappedTokenScanner over the whole of the argued file.
+   *
+   * @param channel An open channel for the file to scan
+   * @throws IOException If the size of the file cannot be determined
+   * @throws IllegalArgumentException If the argued channel is null
+   */
+  public MappedTokenScanner(FileChannel channel) throws IOException {
+    this(channel, 0, channel == null ? 0 : channel.size());
+  }
+
+  /**
+   * Creates a MappedTokenScanner over the bytes [start, end) of the argued file. The range should
+   * begin and end on character boundaries.
+   *
+   * @param channel An open channel for the file to scan
+   * @param start Offset of the first byte to scan
+   * @param end Offset one past the last byte to scan
+   * @throws IllegalArgumentException If the argued channel is null or the range is invalid
+   */
+  public MappedTokenScanner(FileChannel channel, long start, long end) {
+    if (channel == null || start < 0 || end < start) {
+      throw new IllegalArgumentException();
+    }
+    this.channel = channel;
+    this.end = end;
+    this.position = start;
+  }
+
+  /**
+   * Finds a token boundary at or after the argued offset, so that a file can be split into
+   * ranges that are scanned independently. The boundary is where the token containing the first
+   * character at or after from ends.
+   *
+   * @param channel An open channel for the file
+   * @param from The offset to search from
+   * @param end The offset at which to stop searching
+   * @return An offset in (from, end] at which a token starts, or end if there is none
+   * @throws IOException If the file cannot be read
+   */
+  public static long nextTokenBoundary(FileChannel channel, long from, long end)
+      throws IOException {
+    // The decoder never consumes a byte that is not a continuation byte as part of an earlier
+    // character, so the first such byte starts a character.
+    ByteBuffer single = ByteBuffer.allocate(1);
+    long start = from;
+    while (start < end) {
+      single.clear();
+      if (channel.read(single, start) <= 0) {
+        return end;
+      }
+      if ((single.get(0) & 0xC0) != 0x80) {
+        break;
+      }
+      start++;
+    }
+    if (start >= end) {
+      return end;
+    }
+    MappedTokenScanner scanner = new MappedTokenScanner(channel, start, end);
+    scanner.advance();
+    return scanner.tokenOffset() + scanner.tokenByteLength();
+  }
+
+  /**
+   * Determines whether there is another token available.
+   *
+   * @return True if there is another token available
+   */
+  public boolean hasNext() {
+    return position < end;
+  }
+
+  /**
+   * Moves to the next token.
+   *
+   * @return True if a token was read, false if the end of the range was reached
+   * @throws IOException If the file cannot be mapped
+   */
+  public boolean advance() throws IOException {
+    if (!hasNext()) {
+      return false;
+    }
+    tokenOffset = position;
+    tokenLength = 0;
+    tokenIsWord = TokenScanner.isWordChar((char) peekChar());
+    while (position < end) {
+      int c = peekChar();
+      if (TokenScanner.isWordChar((char) c) != tokenIsWord) {
+        break;
+      }
+      if (tokenIsWord) {
+        if (tokenLength == token.length) {
+          token = Arrays.copyOf(token, token.length * 2);
+        }
+        token[tokenLength++] = (char) c;
+      }
+      position += pendingLength;
+      pendingChar = -1;
+    }
+    tokenByteLength = position - tokenOffset;
+    return true;
+  }
+
+  /**
+   * Returns the byte offset in the file of the current token.
+   *
+   * @return The offset of the first byte of the current token
+   */
+  public long tokenOffset() {
+    return tokenOffset;
+  }
+
+  /**
+   * Returns the number of bytes in the current token.
+   *
+   * @return The encoded length of the current token
+   */
+  public long tokenByteLength() {
+    return tokenByteLength;
+  }
+
+  /**
+   * Determines whether the current token is a word token.
+   *
+   * @return True if the current token consists of word characters
+   */
+  public boolean isWordToken() {
+    return tokenIsWord;
+  }
+
+  /**
+   * Returns a view of the characters of the current token if it is a word token, or an empty
+   * sequence otherwise. The view is overwritten by the next call to advance().
+   *
+   * @return The decoded characters of the current word token
+   */
+  public CharSequence token() {
+    return tokenView.set(token, 0, tokenLength);
+  }
+
+  /**
+   * Decodes the character at the current position without consuming it. Characters that are not
+   * in the Basic Multilingual Plane and malformed bytes decode to U+FFFD, which is not a word
+   * character.
+   */
+  private int peekChar() throws IOException {
+    if (pendingChar >= 0) {
+      return pendingChar;
+    }
+    int b0 = byteAt(position);
+    int c;
+    int length;
+    if (b0 < 0x80) {
+      c = b0;
+      length = 1;
+    } else if (b0 >= 0xC2 && b0 < 0xE0) {
+      c = decode(b0 & 0x1F, 1);
+      length = c < 0 ? 1 : 2;
+    } else if (b0 >= 0xE0 && b0 < 0xF0) {
+      c = decode(b0 & 0x0F, 2);
+      if (c < 0x800 || (c >= 0xD800 && c < 0xE000)) {
+        c = -1;
+      }
+      length = c < 0 ? 1 : 3;
+    } else if (b0 >= 0xF0 && b0 < 0xF5) {
+      c = decode(b0 & 0x07, 3);
+      length = c < 0x10000 ? 1 : 4;
+      c = -1;
+    } else {
+      c = -1;
+      length = 1;
+    }
+    pendingChar = c < 0 ? 0xFFFD : c;
+    pendingLength = length;
+    return pendingChar;
+  }
+
+  /**
+   * Folds the argued number of continuation bytes after the current position into the leading
+   * bits of a character.
+   *
+   * @return The decoded code point, or -1 if the continuation bytes are missing or malformed
+   */
+  private int decode(int bits, int continuations) throws IOException {
+    if (position + continuations >= end) {
+      return -1;
+    }
+    for (int i = 1; i <= continuations; i++) {
+      int b = byteAt(position + i);
+      if ((b & 0xC0) != 0x80) {
+        return -1;
+      }
+      bits = (bits << 6) | (b & 0x3F);
+    }
+    return bits;
+  }
+
+  /** Reads the byte at the argued file offset, remapping the window if it is not covered. */
+  private int byteAt(long offset) throws IOException {
+    long relative = offset - windowStart;
+    if (window == null || relative < 0 || relative >= windowLength) {
+      windowStart = offset;
+      windowLength = (int) Math.min(WINDOW_SIZE, end - offset);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+      relative = 0;
+    }
+    return window.get((int) relative) & 0xFF;
+  }
+}
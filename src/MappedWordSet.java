@@ -0,0 +1,351 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A read-only WordSet that probes a precompiled dictionary snapshot mapped straight from disk.
+ *
+ * <p>A snapshot is the open-addressing table of a HashWordSet laid out in a file, so loading one
+ * parses nothing: the file is memory-mapped and lookups read the table in place. A snapshot may
+ * also carry the BloomFilter of its Dictionary, which is then used in place as well. The format,
+ * with all values big-endian, is:
+ *
+ * <pre>
+ * int    MAGIC
+ * int    VERSION
+ * int    number of words
+ * int    capacity, a power of two
+ * int    length of the character area, in chars
+ * int    number of hashes of the Bloom filter, or 0 if there is none
+ * int    length of the Bloom filter, in longs
+ * int    CRC32 of every other byte of the file
+ * int[]  capacity slots: 1 + offset into the character area of the word, or 0 if empty
+ * int[]  capacity hashes, as computed by HashWordSet
+ * char[] character area: each word is its length followed by its lowercase characters
+ * byte[] padding to a multiple of 8 bytes
+ * long[] Bloom filter bits
+ * </pre>
+ *
+ * <p>The checksum, which covers the header as well as the tables, is verified when a snapshot is
+ * mapped, which reads the whole file once, so that a truncated or damaged snapshot is rejected
+ * rather than answering wrongly. Snapshots of any other version are rejected too.
+ *
+ * <p>Snapshots are written with write, to a temporary file that then atomically replaces the
+ * snapshot, so a MappedWordSet that still maps the old file keeps reading it intact.
+ */
+public class MappedWordSet implements WordSet {
+  static final int MAGIC = 0x53504443;
+  static final int VERSION = 3;
+  private static final int HEADER_INTS = 8;
+  private static final int CRC_OFFSET = 28;
+
+  private final IntBuffer slots;
+  private final IntBuffer hashes;
+  private final CharBuffer chars;
+  private final int capacity;
+  private final int mask;
+  private final int numWords;
+  private final BloomFilter filter;
+
+  /**
+   * Maps a dictionary snapshot.
+   *
+   * @param file The snapshot file
+   * @throws IOException If the file cannot be read, is not a snapshot of a known version or
+   *     does not match its checksum
+   * @throws IllegalArgumentException If the argued path is null
+   */
+  public MappedWordSet(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException();
+    }
+    ByteBuffer map;
+    try (FileChannel channel = FileChannel.open(file)) {
+      map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (map.capacity() < 8 || map.getInt(0) != MAGIC) {
+      throw new IOException("Not a dictionary snapshot: " + file);
+    }
+    int version = map.getInt(4);
+    if (version != VERSION) {
+      throw new IOException("Unsupported dictionary snapshot version " + version);
+    }
+    if (map.capacity() < HEADER_INTS * 4) {
+      throw new IOException("Corrupt dictionary snapshot: " + file);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(slice(map, 0, CRC_OFFSET));
+    crc.update(slice(map, CRC_OFFSET + 4, map.capacity() - CRC_OFFSET - 4));
+    if ((int) crc.getValue() != map.getInt(CRC_OFFSET)) {
+      throw new IOException("Dictionary snapshot does not match its checksum: " + file);
+    }
+    numWords = map.getInt(8);
+    capacity = map.getInt(12);
+    mask = capacity - 1;
+    long tableEnd = (HEADER_INTS + 2L * capacity) * 4;
+    if (capacity <= 0 || (capacity & mask) != 0 || tableEnd > map.capacity()) {
+      throw new IOException("Corrupt dictionary snapshot: " + file);
+    }
+    long charsEnd = tableEnd + 2L * map.getInt(16);
+    int filterHashes = map.getInt(20);
+    int filterLongs = map.getInt(24);
+    // Without a filter, the character area is not padded.
+    long filterStart = filterLongs == 0 ? charsEnd : (charsEnd + 7) & ~7L;
+    long filterEnd = filterStart + 8L * filterLongs;
+    if (charsEnd < tableEnd || filterEnd > map.capacity()) {
+      throw new IOException("Corrupt dictionary snapshot: " + file);
+    }
+    slots = slice(map, HEADER_INTS * 4, capacity * 4).asIntBuffer();
+    hashes = slice(map, (HEADER_INTS + capacity) * 4, capacity * 4).asIntBuffer();
+    chars = slice(map, (int) tableEnd, (int) (charsEnd - tableEnd)).asCharBuffer();
+    if (filterHashes > 0 && filterEnd > filterStart) {
+      LongBuffer bits =
+          slice(map, (int) filterStart, (int) (filterEnd - filterStart)).asLongBuffer();
+      filter = new BloomFilter(bits, filterHashes);
+    } else {
+      filter = null;
+    }
+  }
+
+  /**
+   * Writes a snapshot of the argued words.
+   *
+   * @param words The words to write
+   * @param file The file to create or atomically replace
+   * @throws IOException If error while writing
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public static void write(WordSet words, Path file) throws IOException {
+    write(words, null, file);
+  }
+
+  /**
+   * Writes a snapshot of the argued words together with a Bloom filter of them.
+   *
+   * @param words The words to write
+   * @param filter The Bloom filter to store with the words, or null for none
+   * @param file The file to create or atomically replace
+   * @throws IOException If error while writing
+   * @throws IllegalArgumentException If words or file is null
+   */
+  public static void write(WordSet words, BloomFilter filter, Path file) throws IOException {
+    if (words == null || file == null) {
+      throw new IllegalArgumentException();
+    }
+    int capacity = Integer.highestOneBit(Math.max(words.size() * 2, 8) - 1) << 1;
+    int mask = capacity - 1;
+    int[] slots = new int[capacity];
+    int[] hashes = new int[capacity];
+    String[] order = new String[words.size()];
+    int numWords = 0;
+    int numChars = 0;
+    for (String word : words) {
+      if (word.length() > Character.MAX_VALUE) {
+        throw new IOException("Word too long for a dictionary snapshot");
+      }
+      order[numWords++] = word;
+      int hash = HashWordSet.hash(word);
+      int i = hash & mask;
+      while (slots[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      slots[i] = numChars + 1;
+      hashes[i] = hash;
+      numChars += word.length() + 1;
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_INTS * 4);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(numWords);
+    header.putInt(capacity);
+    header.putInt(numChars);
+    header.putInt(filter == null ? 0 : filter.getNumHashes());
+    header.putInt(filter == null ? 0 : (int) (filter.getNumBits() >>> 6));
+    CRC32 crc = new CRC32();
+    crc.update(header.array(), 0, CRC_OFFSET);
+
+    // Files.createTempFile would make the snapshot readable by its owner only.
+    Path absolute = file.toAbsolutePath();
+    Path temp = absolute.resolveSibling(absolute.getFileName() + "."
+        + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+    FileChannel channel =
+        FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    boolean moved = false;
+    try {
+      try (channel) {
+        writeBody(channel, header, crc, capacity, numChars, slots, hashes, order, filter);
+      }
+      Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      moved = true;
+    } finally {
+      if (!moved) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  /**
+   * Writes a snapshot to an empty file: the tables, then the header with the checksum once the
+   * CRC of everything else is known.
+   */
+  private static void writeBody(FileChannel channel, ByteBuffer header, CRC32 crc, int capacity,
+      int numChars, int[] slots, int[] hashes, String[] order, BloomFilter filter)
+      throws IOException {
+    channel.position(HEADER_INTS * 4);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new CheckedOutputStream(Channels.newOutputStream(channel), crc)));
+    for (int slot : slots) {
+      out.writeInt(slot);
+    }
+    for (int hash : hashes) {
+      out.writeInt(hash);
+    }
+    for (String word : order) {
+      out.writeChar(word.length());
+      out.writeChars(word);
+    }
+    if (filter != null) {
+      long charsEnd = (HEADER_INTS + 2L * capacity) * 4 + 2L * numChars;
+      for (long i = charsEnd; (i & 7) != 0; i++) {
+        out.writeByte(0);
+      }
+      LongBuffer bits = filter.bits();
+      for (int i = 0; i < bits.capacity(); i++) {
+        out.writeLong(bits.get(i));
+      }
+    }
+    out.flush();
+
+    header.putInt(CRC_OFFSET, (int) crc.getValue());
+    header.clear();
+    while (header.hasRemaining()) {
+      channel.write(header, header.position());
+    }
+    channel.force(true);
+  }
+
+  /**
+   * Returns the Bloom filter stored in the snapshot.
+   *
+   * @return The Bloom filter of the words, or null if the snapshot has none
+   */
+  BloomFilter getBloomFilter() {
+    return filter;
+  }
+
+  public boolean add(CharSequence word) {
+    throw new UnsupportedOperationException();
+  }
+
+  public boolean contains(CharSequence word) {
+    int hash = HashWordSet.hash(word);
+    int i = hash & mask;
+    int slot;
+    while ((slot = slots.get(i)) != 0) {
+      if (hashes.get(i) == hash && matches(slot - 1, word)) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  public boolean contains(char[] chars, int offset, int length) {
+    int hash = HashWordSet.hash(chars, offset, length);
+    int i = hash & mask;
+    int slot;
+    while ((slot = slots.get(i)) != 0) {
+      if (hashes.get(i) == hash && matches(slot - 1, chars, offset, length)) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return numWords;
+  }
+
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int next = skipEmpty(0);
+
+      public boolean hasNext() {
+        return next < capacity;
+      }
+
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int offset = slots.get(next) - 1;
+        char[] word = new char[chars.get(offset)];
+        for (int i = 0; i < word.length; i++) {
+          word[i] = chars.get(offset + 1 + i);
+        }
+        next = skipEmpty(next + 1);
+        return new String(word);
+      }
+
+      private int skipEmpty(int i) {
+        while (i < capacity && slots.get(i) == 0) {
+          i++;
+        }
+        return i;
+      }
+    };
+  }
+
+  /** Compares the stored word at the argued offset of the character area with a word. */
+  private boolean matches(int offset, CharSequence word) {
+    int length = word.length();
+    if (chars.get(offset) != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chars.get(offset + 1 + i) != Character.toLowerCase(word.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Compares the stored word at the argued offset with the word in a region of a char array. */
+  private boolean matches(int offset, char[] word, int start, int length) {
+    if (chars.get(offset) != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chars.get(offset + 1 + i) != Character.toLowerCase(word[start + i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns an independent view of part of a buffer. */
+  private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+    ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    view.limit(offset + length);
+    return view.slice();
+  }
+}
@@ -0,0 +1,78 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A misspelled word found by a SpellChecker, together with the suggestions it was offered and the
+ * text that was written in its place.
+ */
+public class Misspelling {
+  private final long offset;
+  private final String word;
+  private final List<String> suggestions;
+  private final String replacement;
+
+  /**
+   * Constructs a Misspelling.
+   *
+   * @param offset Position of the word in its document, counted in chars from the start
+   * @param word The misspelled word
+   * @param suggestions The corrections proposed for the word
+   * @param replacement The text chosen in place of the word
+   */
+  public Misspelling(long offset, String word, List<String> suggestions, String replacement) {
+    this.offset = offset;
+    this.word = word;
+    this.suggestions = Collections.unmodifiableList(suggestions);
+    this.replacement = replacement;
+  }
+
+  /**
+   * Returns the position of the word in its document, counted in chars from the start.
+   *
+   * @return The offset of the first character of the word
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Returns the misspelled word.
+   *
+   * @return The word as it appeared in the document
+   */
+  public String getWord() {
+    return word;
+  }
+
+  /**
+   * Returns the corrections that were proposed for the word.
+   *
+   * @return An unmodifiable list of suggestions
+   */
+  public List<String> getSuggestions() {
+    return suggestions;
+  }
+
+  /**
+   * Returns the text that was written in place of the word. This is the word itself if it was
+   * left unchanged.
+   *
+   * @return The replacement text
+   */
+  public String getReplacement() {
+    return replacement;
+  }
+
+  /**
+   * Determines whether the word was replaced.
+   *
+   * @return True if the replacement differs from the word
+   */
+  public boolean isCorrected() {
+    return !replacement.equals(word);
+  }
+
+  public String toString() {
+    return offset + ": " + word + " -> " + replacement + " " + suggestions;
+  }
+}
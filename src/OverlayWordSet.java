@@ -0,0 +1,397 @@
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A WordSet that can be changed after it is built, by layering additions and removals over an
+ * immutable base WordSet.
+ *
+ * <p>The base, the words added and the words removed (tombstones) are held together in one
+ * immutable State, which writers replace copy-on-write and publish with a single volatile write.
+ * A lookup reads the State once and probes at most three hash tables, so reads are wait-free,
+ * allocate nothing and always see a consistent set of words, however many writers there are.
+ * Writers are serialized by a lock, and each write copies the additions or tombstones, so writes
+ * cost time proportional to the number of pending changes.
+ *
+ * <p>Once the pending changes reach the compaction threshold, a background task folds them into a
+ * new base HashWordSet. Changes made while it runs are carried over to the new base. Before the
+ * new base is published, the task hands it to every Indexer, so that correctors can build their
+ * indexes of it in the background while lookups go on against the old base. Likewise, each
+ * writer has every Indexer index the new additions and publishes those indexes in the State, so
+ * correctors never build an index while answering a query.
+ */
+public class OverlayWordSet implements WordSet {
+  /** The compaction threshold used by OverlayWordSet(WordSet). */
+  public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+  private static final HashWordSet EMPTY = new HashWordSet(0);
+
+  private final int compactionThreshold;
+  private final Executor compactor;
+  private final Object writeLock = new Object();
+  private final Object compactionLock = new Object();
+  private final List<WeakReference<Indexer>> indexers = new CopyOnWriteArrayList<>();
+  private volatile State state;
+  private boolean compactionScheduled;
+
+  /** Builds a corrector's indexes of the words before they are published. */
+  interface Indexer {
+
+    /**
+     * Called by the compaction with the new base, before any lookup can see it.
+     *
+     * @param base The new base, which will not be modified
+     */
+    void compacting(WordSet base);
+
+    /**
+     * Called by a writer, holding the write lock, with the additions of the State it is about to
+     * publish.
+     *
+     * @param additions The new additions, which will not be modified
+     * @return The index of the additions, published with them
+     */
+    Object indexAdditions(WordSet additions);
+  }
+
+  /**
+   * Constructs an OverlayWordSet that compacts on the common fork/join pool once
+   * DEFAULT_COMPACTION_THRESHOLD changes are pending.
+   *
+   * @param base The initial words, which must not be modified afterwards
+   * @throws IllegalArgumentException If the argued WordSet is null
+   */
+  public OverlayWordSet(WordSet base) {
+    this(base, DEFAULT_COMPACTION_THRESHOLD, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Constructs an OverlayWordSet.
+   *
+   * @param base The initial words, which must not be modified afterwards
+   * @param compactionThreshold The number of pending changes that triggers a compaction
+   * @param compactor Runs compactions
+   * @throws IllegalArgumentException If base or compactor is null, or the threshold is less than
+   *     one
+   */
+  public OverlayWordSet(WordSet base, int compactionThreshold, Executor compactor) {
+    if (base == null || compactor == null || compactionThreshold < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.compactionThreshold = compactionThreshold;
+    this.compactor = compactor;
+    this.state = new State(base, EMPTY, EMPTY, Collections.emptyMap());
+  }
+
+  /**
+   * One consistent version of the words: the base, minus the tombstones, plus the additions. The
+   * additions are never in the base and the tombstones always are. Each Indexer's index of the
+   * additions is kept under the key addIndexer returned.
+   */
+  static final class State {
+    final WordSet base;
+    final HashWordSet additions;
+    final HashWordSet tombstones;
+    private final Map<Object, Object> additionsIndexes;
+
+    State(WordSet base, HashWordSet additions, HashWordSet tombstones,
+        Map<Object, Object> additionsIndexes) {
+      this.base = base;
+      this.additions = additions;
+      this.tombstones = tombstones;
+      this.additionsIndexes = additionsIndexes;
+    }
+
+    /**
+     * Returns an Indexer's index of the additions.
+     *
+     * @param key The key addIndexer returned for the Indexer
+     * @return The index, or null if the Indexer failed to build it
+     */
+    Object additionsIndex(Object key) {
+      return additionsIndexes.get(key);
+    }
+
+    boolean contains(CharSequence word) {
+      if (tombstones.size() != 0 && tombstones.contains(word)) {
+        return false;
+      }
+      if (additions.size() != 0 && additions.contains(word)) {
+        return true;
+      }
+      return base.contains(word);
+    }
+
+    boolean contains(char[] chars, int offset, int length) {
+      if (tombstones.size() != 0 && tombstones.contains(chars, offset, length)) {
+        return false;
+      }
+      if (additions.size() != 0 && additions.contains(chars, offset, length)) {
+        return true;
+      }
+      return base.contains(chars, offset, length);
+    }
+
+    int pending() {
+      return additions.size() + tombstones.size();
+    }
+  }
+
+  /**
+   * Adds a word, making it visible to every lookup that starts afterwards.
+   *
+   * @param word The word to add
+   * @return True if the word was not already present
+   */
+  public boolean add(CharSequence word) {
+    synchronized (writeLock) {
+      State s = state;
+      if (s.contains(word)) {
+        return false;
+      }
+      if (s.tombstones.contains(word)) {
+        publish(s.base, s.additions, without(s.tombstones, word));
+      } else {
+        publish(s.base, with(s.additions, word), s.tombstones);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Removes a word, making it invisible to every lookup that starts afterwards.
+   *
+   * @param word The word to remove
+   * @return True if the word was present
+   */
+  public boolean remove(CharSequence word) {
+    synchronized (writeLock) {
+      State s = state;
+      if (!s.contains(word)) {
+        return false;
+      }
+      if (s.additions.contains(word)) {
+        publish(s.base, without(s.additions, word), s.tombstones);
+      } else {
+        publish(s.base, s.additions, with(s.tombstones, word));
+      }
+      return true;
+    }
+  }
+
+  public boolean contains(CharSequence word) {
+    return state.contains(word);
+  }
+
+  public boolean contains(char[] chars, int offset, int length) {
+    return state.contains(chars, offset, length);
+  }
+
+  public int size() {
+    State s = state;
+    return s.base.size() - s.tombstones.size() + s.additions.size();
+  }
+
+  /**
+   * Returns the number of additions and removals not yet folded into the base.
+   *
+   * @return The number of pending changes
+   */
+  public int getPendingChanges() {
+    return state.pending();
+  }
+
+  /**
+   * Iterates over the words of the version current when this method is called.
+   */
+  public Iterator<String> iterator() {
+    State s = state;
+    Iterator<String> base = s.base.iterator();
+    Iterator<String> additions = s.additions.iterator();
+    return new Iterator<String>() {
+      private String next = advance();
+
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      public String next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        String word = next;
+        next = advance();
+        return word;
+      }
+
+      private String advance() {
+        while (base.hasNext()) {
+          String word = base.next();
+          if (!s.tombstones.contains(word)) {
+            return word;
+          }
+        }
+        return additions.hasNext() ? additions.next() : null;
+      }
+    };
+  }
+
+  /** Folds the pending changes into a new base now, in the calling thread. */
+  public void compact() {
+    synchronized (compactionLock) {
+      State before = state;
+      if (before.pending() == 0) {
+        synchronized (writeLock) {
+          compactionScheduled = false;
+        }
+        return;
+      }
+      HashWordSet base = new HashWordSet(before.base.size() + before.additions.size());
+      for (String word : before.base) {
+        if (!before.tombstones.contains(word)) {
+          base.add(word);
+        }
+      }
+      for (String word : before.additions) {
+        base.add(word);
+      }
+      for (WeakReference<Indexer> ref : indexers) {
+        Indexer indexer = ref.get();
+        if (indexer == null) {
+          indexers.remove(ref);
+        } else {
+          try {
+            indexer.compacting(base);
+          } catch (RuntimeException e) {
+            // The indexer will meet the failure again when it next builds from the new base.
+          }
+        }
+      }
+
+      synchronized (writeLock) {
+        // Re-express the changes made since before relative to the new base: words added then
+        // are now in the base, and words removed then are not.
+        State now = state;
+        HashWordSet additions = new HashWordSet();
+        HashWordSet tombstones = new HashWordSet();
+        for (String word : now.additions) {
+          if (!before.additions.contains(word)) {
+            additions.add(word);
+          }
+        }
+        for (String word : before.tombstones) {
+          if (!now.tombstones.contains(word)) {
+            additions.add(word);
+          }
+        }
+        for (String word : now.tombstones) {
+          if (!before.tombstones.contains(word)) {
+            tombstones.add(word);
+          }
+        }
+        for (String word : before.additions) {
+          if (!now.additions.contains(word)) {
+            tombstones.add(word);
+          }
+        }
+        state = next(base, additions, tombstones);
+        compactionScheduled = false;
+      }
+    }
+  }
+
+  /**
+   * Registers an Indexer to be called by every later write and compaction, and republishes the
+   * current State with its index of the current additions. The Indexer is held weakly, so that
+   * registering it does not keep it alive.
+   *
+   * @param indexer The Indexer
+   * @return The key of the Indexer's additions indexes in every later State
+   */
+  Object addIndexer(Indexer indexer) {
+    WeakReference<Indexer> key = new WeakReference<>(indexer);
+    synchronized (writeLock) {
+      indexers.add(key);
+      State s = state;
+      Map<Object, Object> indexes = new IdentityHashMap<>(s.additionsIndexes);
+      index(key, indexer, s.additions, indexes);
+      state = new State(s.base, s.additions, s.tombstones, indexes);
+    }
+    return key;
+  }
+
+  /** Returns the current version, for correctors that index the base and additions separately. */
+  State state() {
+    return state;
+  }
+
+  /** Publishes a new version and schedules a compaction if too many changes are pending. */
+  private void publish(WordSet base, HashWordSet additions, HashWordSet tombstones) {
+    State s = next(base, additions, tombstones);
+    state = s;
+    if (s.pending() >= compactionThreshold && !compactionScheduled) {
+      compactionScheduled = true;
+      compactor.execute(this::compact);
+    }
+  }
+
+  /**
+   * Returns the State of the argued words, with the indexes of the additions rebuilt if they
+   * changed. Called holding the write lock.
+   */
+  private State next(WordSet base, HashWordSet additions, HashWordSet tombstones) {
+    State s = state;
+    if (additions == s.additions) {
+      return new State(base, additions, tombstones, s.additionsIndexes);
+    }
+    Map<Object, Object> indexes = new IdentityHashMap<>();
+    for (WeakReference<Indexer> key : indexers) {
+      Indexer indexer = key.get();
+      if (indexer == null) {
+        indexers.remove(key);
+      } else {
+        index(key, indexer, additions, indexes);
+      }
+    }
+    return new State(base, additions, tombstones, indexes);
+  }
+
+  /** Adds an Indexer's index of the additions to the argued map, unless it cannot build one. */
+  private static void index(
+      Object key, Indexer indexer, WordSet additions, Map<Object, Object> indexes) {
+    if (additions.size() == 0) {
+      return;
+    }
+    try {
+      indexes.put(key, indexer.indexAdditions(additions));
+    } catch (RuntimeException e) {
+      // The indexer will meet the failure again when it builds the index itself.
+    }
+  }
+
+  private static HashWordSet with(HashWordSet words, CharSequence word) {
+    HashWordSet copy = new HashWordSet(words.size() + 1);
+    for (String w : words) {
+      copy.add(w);
+    }
+    copy.add(word);
+    return copy;
+  }
+
+  private static HashWordSet without(HashWordSet words, CharSequence word) {
+    HashWordSet copy = new HashWordSet(words.size());
+    for (String w : words) {
+      if (!HashWordSet.equalsIgnoreCase(w, word)) {
+        copy.add(w);
+      }
+    }
+    return copy;
+  }
+}
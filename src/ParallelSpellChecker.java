@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Spell checks a single large UTF-8 file on many cores.
+ *
+ * <p>The file is memory-mapped and split in half repeatedly, on a fork/join pool, until each piece
+ * is at most the chunk size. Every split point is moved forward to the next token boundary, so no
+ * word ever straddles two chunks and each chunk sees exactly the tokens a sequential scan would.
+ * Each chunk is scanned and checked independently, producing the list of its corrections; the
+ * lists are then spliced into the output in file order, copying untouched bytes with
+ * FileChannel.transferTo.
+ *
+ * <p>The output is byte-for-byte the output of SpellChecker.checkDocument(Path, Path,
+ * CorrectionPolicy) with the same policy. The policy is called from many threads and in no
+ * particular order, so it must be thread safe and must decide each word on its own.
+ */
+public class ParallelSpellChecker {
+  /** The chunk size used by ParallelSpellChecker(SpellChecker). */
+  public static final long DEFAULT_CHUNK_SIZE = 4L << 20;
+
+  private final SpellChecker checker;
+  private final ForkJoinPool pool;
+  private final long chunkSize;
+
+  /**
+   * Constructs a ParallelSpellChecker that runs on the common fork/join pool.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @throws IllegalArgumentException If the argued SpellChecker is null
+   */
+  public ParallelSpellChecker(SpellChecker checker) {
+    this(checker, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructs a ParallelSpellChecker.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @param pool The pool on which chunks are checked
+   * @param chunkSize The largest number of bytes checked as one piece
+   * @throws IllegalArgumentException If an argument is null or chunkSize is not positive
+   */
+  public ParallelSpellChecker(SpellChecker checker, ForkJoinPool pool, long chunkSize) {
+    if (checker == null || pool == null || chunkSize <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.checker = checker;
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Spell checks a UTF-8 file without user interaction.
+   *
+   * @param in The source document to spell check
+   * @param out The target document to which the corrected output is written. It is created if it
+   *     does not exist and truncated if it does.
+   * @param policy Decides the replacement for each misspelled word
+   * @throws IOException if error while reading or writing
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public void checkDocument(Path in, Path out, CorrectionPolicy policy) throws IOException {
+    if (in == null || out == null || policy == null) {
+      throw new IllegalArgumentException();
+    }
+    try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+        FileChannel target = SpellChecker.openOutput(out)) {
+      DocumentTimer timer = checker.startTimer();
+      List<Edit> edits;
+      try {
+        edits = pool.invoke(new ChunkTask(source, 0, source.size(), policy, timer));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      long copied = 0;
+      for (Edit edit : edits) {
+        SpellChecker.transfer(source, copied, edit.offset, target);
+        ByteBuffer replacement = ByteBuffer.wrap(edit.replacement);
+        while (replacement.hasRemaining()) {
+          target.write(replacement);
+        }
+        copied = edit.offset + edit.length;
+      }
+      SpellChecker.transfer(source, copied, source.size(), target);
+      if (timer != null) {
+        timer.finish();
+      }
+    }
+  }
+
+  /** A misspelled word to be replaced in the output. */
+  private static class Edit {
+    private final long offset;
+    private final long length;
+    private final byte[] replacement;
+
+    Edit(long offset, long length, byte[] replacement) {
+      this.offset = offset;
+      this.length = length;
+      this.replacement = replacement;
+    }
+  }
+
+  /** Checks the bytes [start, end) of the file, which begin and end on token boundaries. */
+  private class ChunkTask extends RecursiveTask<List<Edit>> {
+    private static final long serialVersionUID = 1L;
+
+    private final FileChannel source;
+    private final long start;
+    private final long end;
+    private final CorrectionPolicy policy;
+    private final DocumentTimer documentTimer;
+
+    ChunkTask(
+        FileChannel source, long start, long end, CorrectionPolicy policy, DocumentTimer timer) {
+      this.source = source;
+      this.start = start;
+      this.end = end;
+      this.policy = policy;
+      this.documentTimer = timer;
+    }
+
+    protected List<Edit> compute() {
+      try {
+        if (end - start > chunkSize) {
+          long middle =
+              MappedTokenScanner.nextTokenBoundary(source, start + (end - start) / 2, end);
+          if (middle < end) {
+            ChunkTask left = new ChunkTask(source, start, middle, policy, documentTimer);
+            ChunkTask right = new ChunkTask(source, middle, end, policy, documentTimer);
+            left.fork();
+            List<Edit> rightEdits = right.compute();
+            List<Edit> edits = left.join();
+            edits.addAll(rightEdits);
+            return edits;
+          }
+        }
+        return check();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private List<Edit> check() throws IOException {
+      List<Edit> edits = new ArrayList<>();
+      MappedTokenScanner ts = new MappedTokenScanner(source, start, end);
+      // Each chunk is timed on its own and merged into the timer of the whole document.
+      DocumentTimer timer = documentTimer == null ? null : checker.startTimer();
+      while (ts.advance()) {
+        if (timer != null) {
+          timer.scanned(ts.isWordToken());
+        }
+        boolean correct = !ts.isWordToken() || !checker.isMisspelled(ts.token());
+        if (timer != null) {
+          timer.lap(SpellCheckListener.Stage.LOOKUP);
+        }
+        if (correct) {
+          continue;
+        }
+        String word = ts.token().toString();
+        List<String> suggestions = checker.suggestions(word);
+        long correctorNanos = timer == null ? 0 : timer.lap(SpellCheckListener.Stage.CORRECT);
+        String correction = policy.choose(word, suggestions);
+        if (timer != null) {
+          timer.misspelled(word, suggestions, correction, correctorNanos);
+        }
+        if (!correction.equals(word)) {
+          edits.add(new Edit(ts.tokenOffset(), ts.tokenByteLength(),
+              correction.getBytes(StandardCharsets.UTF_8)));
+        }
+      }
+      if (timer != null) {
+        documentTimer.merge(timer);
+      }
+      return edits;
+    }
+  }
+}
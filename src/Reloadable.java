@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds a value built from files, such as a Dictionary, a FileCorrector or a whole SpellChecker,
+ * and rebuilds it whenever one of the files changes.
+ *
+ * <p>The files are watched with a WatchService. When one of them is created or modified, a
+ * background thread waits for writes to settle, builds a new value with the Loader, and publishes
+ * it by a single volatile write. get() is a single volatile read, so callers never lock. A caller
+ * that gets the value once and uses it for a whole document keeps a consistent snapshot even if a
+ * reload happens meanwhile; the old value is simply collected once nobody uses it. If a reload
+ * fails, the previous value stays in place and the failure is recorded.
+ *
+ * <p>For example, to serve a SpellChecker that follows its dictionary and corrections files:
+ *
+ * <pre>
+ * Reloadable&lt;SpellChecker&gt; checker = new Reloadable&lt;&gt;(() -&gt; {
+ *   Dictionary d = Dictionary.make(dictionaryFile);
+ *   return new SpellChecker(FileCorrector.make(correctionsFile), d);
+ * }, Paths.get(dictionaryFile), Paths.get(correctionsFile));
+ * ...
+ * checker.get().checkDocument(in, out, policy);
+ * </pre>
+ *
+ * @param <T> The type of the value
+ */
+public class Reloadable<T> implements AutoCloseable {
+  /** How long the files must be left alone after a change before they are reloaded. */
+  public static final long SETTLE_MILLIS = 200;
+
+  /**
+   * Builds a value from its files.
+   *
+   * @param <T> The type of the value
+   */
+  public interface Loader<T> {
+
+    /**
+     * Builds a new value.
+     *
+     * @return The value, which must not be null
+     * @throws Exception If the value cannot be built
+     */
+    T load() throws Exception;
+  }
+
+  private final Loader<T> loader;
+  private final Set<Path> files = new HashSet<>();
+  private final WatchService watcher;
+  private final Thread thread;
+
+  private volatile T current;
+  private volatile long generation;
+  private volatile long lastReloadNanos;
+  private volatile long failures;
+  private volatile Exception lastFailure;
+
+  /**
+   * Builds the first value and starts watching the argued files.
+   *
+   * @param loader Builds each value
+   * @param files The files the value is built from
+   * @throws Exception If the first value cannot be built, or the files cannot be watched
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public Reloadable(Loader<T> loader, Path... files) throws Exception {
+    if (loader == null || files == null) {
+      throw new IllegalArgumentException();
+    }
+    this.loader = loader;
+    Set<Path> directories = new LinkedHashSet<>();
+    for (Path file : files) {
+      if (file == null) {
+        throw new IllegalArgumentException();
+      }
+      Path absolute = file.toAbsolutePath().normalize();
+      this.files.add(absolute);
+      directories.add(absolute.getParent());
+    }
+
+    reload();
+    if (lastFailure != null) {
+      throw lastFailure;
+    }
+
+    watcher = FileSystems.getDefault().newWatchService();
+    try {
+      for (Path directory : directories) {
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+      }
+    } catch (IOException e) {
+      watcher.close();
+      throw e;
+    }
+    thread = new Thread(this::watch, "Reloadable watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Returns the current value. This never blocks.
+   *
+   * @return The most recently built value
+   */
+  public T get() {
+    return current;
+  }
+
+  /**
+   * Builds a new value now and publishes it if the build succeeds. Reloads never run concurrently
+   * with each other.
+   *
+   * @return True if a new value was published
+   */
+  public synchronized boolean reload() {
+    long start = System.nanoTime();
+    T value;
+    try {
+      value = loader.load();
+      if (value == null) {
+        throw new IllegalStateException("Loader returned null");
+      }
+    } catch (Exception e) {
+      failures++;
+      lastFailure = e;
+      return false;
+    }
+    current = value;
+    lastReloadNanos = System.nanoTime() - start;
+    lastFailure = null;
+    generation++;
+    return true;
+  }
+
+  /**
+   * Returns the number of values published so far, including the first.
+   *
+   * @return The generation of the current value, counting from one
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Returns how long the most recent successful build took.
+   *
+   * @return The duration in nanoseconds
+   */
+  public long getLastReloadNanos() {
+    return lastReloadNanos;
+  }
+
+  /**
+   * Returns the number of reloads that failed.
+   *
+   * @return The number of failed reloads
+   */
+  public long getFailureCount() {
+    return failures;
+  }
+
+  /**
+   * Returns why the most recent reload failed.
+   *
+   * @return The failure, or null if the most recent reload succeeded
+   */
+  public Exception getLastFailure() {
+    return lastFailure;
+  }
+
+  /** Stops watching the files. The current value remains available. */
+  public void close() throws IOException {
+    watcher.close();
+  }
+
+  /** Waits for changes to the files, and reloads once a burst of changes has settled. */
+  private void watch() {
+    try {
+      while (true) {
+        boolean changed = drain(watcher.take());
+        if (!changed) {
+          continue;
+        }
+        WatchKey key;
+        while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          drain(key);
+        }
+        reload();
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // Closed; stop watching.
+    }
+  }
+
+  /**
+   * Consumes the events of a key and resets it.
+   *
+   * @return True if one of the files may have changed
+   */
+  private boolean drain(WatchKey key) {
+    boolean changed = false;
+    Path directory = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+          || files.contains(directory.resolve((Path) event.context()))) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+}
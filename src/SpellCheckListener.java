@@ -0,0 +1,54 @@
+import java.util.List;
+
+/**
+ * Receives measurements of SpellChecker runs: how long each stage of checking took, how many
+ * tokens, words and misspellings were seen, and how long the Corrector took for each misspelling.
+ *
+ * <p>A SpellChecker without a listener takes no timestamps and allocates nothing to measure
+ * itself, so instrumentation costs nothing unless it is asked for. A SpellChecker with a listener
+ * reads the clock a few times per token. Listeners are called from the threads that check
+ * documents, possibly many at once, so implementations must be thread safe and fast.
+ *
+ * @see SpellCheckMetrics
+ */
+public interface SpellCheckListener {
+
+  /** The stages of checking a document, whose times are reported to documentChecked. */
+  enum Stage {
+    /** Splitting the input into tokens. */
+    TOKENIZE,
+    /** Looking words up in the Dictionary. */
+    LOOKUP,
+    /** Generating and sorting suggestions with the Corrector. */
+    CORRECT,
+    /** Choosing a replacement with the CorrectionPolicy. */
+    DECIDE,
+    /** Writing the output. */
+    WRITE
+  }
+
+  /**
+   * Called after a misspelled word has been corrected.
+   *
+   * @param corrector The Corrector that made the suggestions
+   * @param word The misspelled word
+   * @param suggestions The suggestions, in the order they were offered
+   * @param replacement The text chosen to replace the word, equal to word if it was left
+   * @param correctorNanos How long the Corrector took to make the suggestions
+   */
+  default void misspelled(Corrector corrector, String word, List<String> suggestions,
+      String replacement, long correctorNanos) {}
+
+  /**
+   * Called once a document has been checked.
+   *
+   * @param tokens The number of tokens in the document
+   * @param words The number of word tokens in the document
+   * @param misspellings The number of misspelled words
+   * @param replacements The number of misspelled words that were replaced rather than left
+   * @param stageNanos The total time spent in each stage, indexed by Stage.ordinal(). For a
+   *     document checked in parallel, the times of all threads are summed.
+   */
+  default void documentChecked(
+      long tokens, long words, long misspellings, long replacements, long[] stageNanos) {}
+}
@@ -0,0 +1,169 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A SpellCheckListener that accumulates counts, stage times and a LatencyHistogram per Corrector
+ * class, and can publish them as a JMX MBean. One SpellCheckMetrics can be shared by any number of
+ * SpellCheckers checking documents concurrently.
+ *
+ * <pre>
+ * SpellCheckMetrics metrics = new SpellCheckMetrics();
+ * metrics.register("default");
+ * SpellChecker checker = new SpellChecker(corrector, dict, metrics);
+ * </pre>
+ */
+public class SpellCheckMetrics implements SpellCheckListener, SpellCheckMetricsMBean {
+  /** The JMX domain under which metrics are registered. */
+  public static final String DOMAIN = "SpellChecker";
+
+  private final LongAdder documents = new LongAdder();
+  private final LongAdder tokens = new LongAdder();
+  private final LongAdder words = new LongAdder();
+  private final LongAdder misspellings = new LongAdder();
+  private final LongAdder replacements = new LongAdder();
+  private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+  private final ConcurrentMap<String, LatencyHistogram> correctors = new ConcurrentHashMap<>();
+
+  /** Constructs SpellCheckMetrics with every count at zero. */
+  public SpellCheckMetrics() {
+    for (int i = 0; i < stageNanos.length; i++) {
+      stageNanos[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server as
+   * SpellChecker:type=SpellCheckMetrics,name=&lt;name&gt;.
+   *
+   * @param name Distinguishes these metrics from those of other SpellCheckers
+   * @return The name under which the metrics were registered
+   * @throws JMException If the name is invalid or already registered
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName =
+        new ObjectName(DOMAIN + ":type=SpellCheckMetrics,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  public void misspelled(Corrector corrector, String word, List<String> suggestions,
+      String replacement, long correctorNanos) {
+    String name = corrector.getClass().getSimpleName();
+    LatencyHistogram histogram = correctors.get(name);
+    if (histogram == null) {
+      histogram = correctors.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+    histogram.record(correctorNanos);
+  }
+
+  public void documentChecked(
+      long tokens, long words, long misspellings, long replacements, long[] stageNanos) {
+    documents.increment();
+    this.tokens.add(tokens);
+    this.words.add(words);
+    this.misspellings.add(misspellings);
+    this.replacements.add(replacements);
+    for (int i = 0; i < stageNanos.length; i++) {
+      this.stageNanos[i].add(stageNanos[i]);
+    }
+  }
+
+  /**
+   * Returns the latency histogram of a Corrector class.
+   *
+   * @param corrector The simple class name of the Corrector
+   * @return The histogram, or null if no latency has been recorded for the Corrector
+   */
+  public LatencyHistogram getCorrectorLatency(String corrector) {
+    return correctors.get(corrector);
+  }
+
+  /**
+   * Returns the total time spent in a stage.
+   *
+   * @param stage The stage
+   * @return The time in nanoseconds
+   */
+  public long getStageNanos(Stage stage) {
+    return stageNanos[stage.ordinal()].sum();
+  }
+
+  public long getDocuments() {
+    return documents.sum();
+  }
+
+  public long getTokens() {
+    return tokens.sum();
+  }
+
+  public long getWords() {
+    return words.sum();
+  }
+
+  public long getMisspellings() {
+    return misspellings.sum();
+  }
+
+  public long getReplacements() {
+    return replacements.sum();
+  }
+
+  public long getTokenizeNanos() {
+    return getStageNanos(Stage.TOKENIZE);
+  }
+
+  public long getLookupNanos() {
+    return getStageNanos(Stage.LOOKUP);
+  }
+
+  public long getCorrectNanos() {
+    return getStageNanos(Stage.CORRECT);
+  }
+
+  public long getDecideNanos() {
+    return getStageNanos(Stage.DECIDE);
+  }
+
+  public long getWriteNanos() {
+    return getStageNanos(Stage.WRITE);
+  }
+
+  public String[] getCorrectorNames() {
+    return correctors.keySet().toArray(new String[0]);
+  }
+
+  public long getCorrectorLatencyNanos(String corrector, double percentile) {
+    LatencyHistogram histogram = correctors.get(corrector);
+    return histogram == null ? 0 : histogram.getValueAtPercentile(percentile);
+  }
+
+  public void reset() {
+    documents.reset();
+    tokens.reset();
+    words.reset();
+    misspellings.reset();
+    replacements.reset();
+    for (LongAdder nanos : stageNanos) {
+      nanos.reset();
+    }
+    correctors.clear();
+  }
+
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    s.append(String.format("documents=%d tokens=%d words=%d misspellings=%d replacements=%d%n",
+        getDocuments(), getTokens(), getWords(), getMisspellings(), getReplacements()));
+    for (Stage stage : Stage.values()) {
+      s.append(String.format("  %-8s %12.3f ms%n", stage, getStageNanos(stage) / 1e6));
+    }
+    for (String corrector : correctors.keySet()) {
+      s.append(String.format("  %s: %s%n", corrector, correctors.get(corrector)));
+    }
+    return s.toString();
+  }
+}
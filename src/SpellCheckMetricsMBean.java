@@ -0,0 +1,95 @@
+/**
+ * The management interface of SpellCheckMetrics, through which JMX clients such as JConsole read
+ * the metrics of a running spell checker.
+ */
+public interface SpellCheckMetricsMBean {
+
+  /**
+   * Returns the number of documents checked.
+   *
+   * @return The number of documents
+   */
+  long getDocuments();
+
+  /**
+   * Returns the number of tokens scanned.
+   *
+   * @return The number of tokens
+   */
+  long getTokens();
+
+  /**
+   * Returns the number of word tokens scanned.
+   *
+   * @return The number of words
+   */
+  long getWords();
+
+  /**
+   * Returns the number of misspelled words found.
+   *
+   * @return The number of misspellings
+   */
+  long getMisspellings();
+
+  /**
+   * Returns the number of misspelled words that were replaced rather than left.
+   *
+   * @return The number of replacements
+   */
+  long getReplacements();
+
+  /**
+   * Returns the total time spent splitting documents into tokens.
+   *
+   * @return The time in nanoseconds
+   */
+  long getTokenizeNanos();
+
+  /**
+   * Returns the total time spent looking words up in the Dictionary.
+   *
+   * @return The time in nanoseconds
+   */
+  long getLookupNanos();
+
+  /**
+   * Returns the total time spent generating suggestions.
+   *
+   * @return The time in nanoseconds
+   */
+  long getCorrectNanos();
+
+  /**
+   * Returns the total time spent choosing replacements.
+   *
+   * @return The time in nanoseconds
+   */
+  long getDecideNanos();
+
+  /**
+   * Returns the total time spent writing output.
+   *
+   * @return The time in nanoseconds
+   */
+  long getWriteNanos();
+
+  /**
+   * Returns the names of the Corrector classes whose latency has been recorded.
+   *
+   * @return The simple class names
+   */
+  String[] getCorrectorNames();
+
+  /**
+   * Returns a percentile of the latency of a Corrector.
+   *
+   * @param corrector The simple class name of the Corrector
+   * @param percentile The percentage, from 0 to 100
+   * @return The latency in nanoseconds, or 0 if none has been recorded for the Corrector
+   */
+  long getCorrectorLatencyNanos(String corrector, double percentile);
+
+  /** Resets every count, time and histogram to zero. */
+  void reset();
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Flow.Processor that spell checks a continuous stream of text, such as chat messages, arriving
+ * as chunks, and publishes a Misspelling for each misspelled word.
+ *
+ * <p>Chunks may split words anywhere: a word still open at the end of a chunk is carried over and
+ * checked once the chunk that ends it arrives, or when the stream completes. Offsets are counted
+ * in chars from the start of the whole stream. Words are split exactly as TokenScanner splits
+ * them, except that a run of word characters longer than MAX_WORD_LENGTH is not a word: it is
+ * skipped without being checked, so that a stream without any separator cannot make the carried
+ * over word grow without bound.
+ *
+ * <p>Backpressure works as in the TransformProcessor example of SubmissionPublisher: one chunk is
+ * requested at a time, and the next only once every event of the current one has been accepted.
+ * When a subscriber's buffer is full, publishing blocks until it asks for more, so a slow consumer
+ * holds up the producer instead of making this processor buffer without bound. At most
+ * maxBufferCapacity events are buffered per subscriber.
+ *
+ * <p>The processor measures itself: the latency of each chunk, from its arrival until its events
+ * have been published, goes into a LatencyHistogram, and the counts of chunks, chars and
+ * misspellings give the throughput.
+ */
+public class SpellCheckProcessor extends SubmissionPublisher<Misspelling>
+    implements Flow.Processor<CharSequence, Misspelling> {
+  /** The longest run of word characters checked as a word. */
+  public static final int MAX_WORD_LENGTH = 256;
+
+  private final SpellChecker checker;
+  private final CorrectionPolicy policy;
+  private final CharSlice view = new CharSlice();
+  private Flow.Subscription subscription;
+
+  private char[] word = new char[64];
+  private int wordLength;
+  private boolean wordTooLong;
+  private long wordOffset;
+  private long consumed;
+
+  private final LatencyHistogram chunkLatency = new LatencyHistogram();
+  private final LongAdder chunks = new LongAdder();
+  private final LongAdder chars = new LongAdder();
+  private final LongAdder misspellings = new LongAdder();
+  private volatile long firstChunkNanos;
+  private volatile long lastChunkNanos;
+
+  /**
+   * Constructs a SpellCheckProcessor that delivers events on the common fork/join pool, with the
+   * default buffer capacity of Flow.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @param policy Decides the replacement reported with each misspelling
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public SpellCheckProcessor(SpellChecker checker, CorrectionPolicy policy) {
+    this(checker, policy, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+  }
+
+  /**
+   * Constructs a SpellCheckProcessor.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @param policy Decides the replacement reported with each misspelling
+   * @param executor Delivers events to subscribers
+   * @param maxBufferCapacity The most events buffered for each subscriber, rounded up to a power
+   *     of two
+   * @throws IllegalArgumentException If an argument is null, or maxBufferCapacity is less than
+   *     one
+   */
+  public SpellCheckProcessor(SpellChecker checker, CorrectionPolicy policy, Executor executor,
+      int maxBufferCapacity) {
+    super(requireExecutor(executor, maxBufferCapacity), maxBufferCapacity);
+    if (checker == null || policy == null) {
+      throw new IllegalArgumentException();
+    }
+    this.checker = checker;
+    this.policy = policy;
+  }
+
+  private static Executor requireExecutor(Executor executor, int maxBufferCapacity) {
+    if (executor == null || maxBufferCapacity < 1) {
+      throw new IllegalArgumentException();
+    }
+    return executor;
+  }
+
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    subscription.request(1);
+  }
+
+  /**
+   * Checks a chunk and publishes its misspellings, blocking while a subscriber's buffer is full,
+   * then requests the next chunk.
+   *
+   * @param chunk The next piece of the stream
+   */
+  public void onNext(CharSequence chunk) {
+    long start = System.nanoTime();
+    if (firstChunkNanos == 0) {
+      firstChunkNanos = start;
+    }
+    int length = chunk.length();
+    for (int i = 0; i < length; i++) {
+      char c = chunk.charAt(i);
+      if (TokenScanner.isWordChar(c)) {
+        if (wordTooLong) {
+          continue;
+        }
+        if (wordLength == 0) {
+          wordOffset = consumed + i;
+        }
+        if (wordLength == MAX_WORD_LENGTH) {
+          wordTooLong = true;
+          wordLength = 0;
+          continue;
+        }
+        if (wordLength == word.length) {
+          word = Arrays.copyOf(word, Math.min(wordLength * 2, MAX_WORD_LENGTH));
+        }
+        word[wordLength++] = c;
+      } else if (wordTooLong) {
+        wordTooLong = false;
+      } else if (wordLength > 0) {
+        checkWord();
+      }
+    }
+    consumed += length;
+
+    long end = System.nanoTime();
+    lastChunkNanos = end;
+    chunks.increment();
+    chars.add(length);
+    chunkLatency.record(end - start);
+    subscription.request(1);
+  }
+
+  /** Checks the word still open, if any, and completes the stream of events. */
+  public void onComplete() {
+    if (wordLength > 0) {
+      checkWord();
+    }
+    close();
+  }
+
+  /**
+   * Passes an upstream failure on to every subscriber.
+   *
+   * @param throwable The failure
+   */
+  public void onError(Throwable throwable) {
+    closeExceptionally(throwable);
+  }
+
+  /** Checks the buffered word and publishes it if it is misspelled. */
+  private void checkWord() {
+    int length = wordLength;
+    wordLength = 0;
+    if (!checker.isMisspelled(view.set(word, 0, length))) {
+      return;
+    }
+    String misspelled = new String(word, 0, length);
+    List<String> suggestions = checker.suggestions(misspelled);
+    String replacement = policy.choose(misspelled, suggestions);
+    misspellings.increment();
+    submit(new Misspelling(wordOffset, misspelled, suggestions, replacement));
+  }
+
+  /**
+   * Returns the histogram of chunk latencies: the time from the arrival of each chunk until all
+   * of its events were accepted by the subscribers' buffers, in nanoseconds.
+   *
+   * @return The live histogram
+   */
+  public LatencyHistogram getChunkLatency() {
+    return chunkLatency;
+  }
+
+  /**
+   * Returns the number of chunks processed.
+   *
+   * @return The number of chunks
+   */
+  public long getChunks() {
+    return chunks.sum();
+  }
+
+  /**
+   * Returns the number of chars processed.
+   *
+   * @return The number of chars
+   */
+  public long getChars() {
+    return chars.sum();
+  }
+
+  /**
+   * Returns the number of misspellings published.
+   *
+   * @return The number of misspellings
+   */
+  public long getMisspellings() {
+    return misspellings.sum();
+  }
+
+  /**
+   * Returns the throughput, from the arrival of the first chunk until the last one was processed.
+   * This includes time spent waiting for chunks, so under sustained load it is the rate the
+   * producer and consumers together allow.
+   *
+   * @return The chars processed per second, or 0 if nothing has been processed
+   */
+  public double getCharsPerSecond() {
+    long elapsed = lastChunkNanos - firstChunkNanos;
+    return elapsed <= 0 ? 0 : getChars() * 1e9 / elapsed;
+  }
+}
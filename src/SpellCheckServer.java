@@ -0,0 +1,386 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A small HTTP server that answers spell check requests from one shared Dictionary and Corrector,
+ * for services that would rather call over the loopback interface than embed the classes.
+ *
+ * <p>Every response is a JSON object, and errors carry their message as {"error": ...}.
+ *
+ * <ul>
+ *   <li>GET /isWord?word=W answers {"word": W, "isWord": true|false}.
+ *   <li>GET /corrections?word=W answers {"word": W, "corrections": [...]}, sorted alphabetically.
+ *   <li>POST /check?policy=P checks the UTF-8 document in the request body and answers {"text":
+ *       corrected document, "misspellings": [{"offset", "word", "suggestions", "replacement"}]}.
+ *       P is leave (the default), first or best, naming the CorrectionPolicy of the same name.
+ * </ul>
+ *
+ * <p>Requests run on a virtual thread each where the JDK provides them, and on a cached pool of
+ * threads otherwise. Concurrent /corrections requests are handed to a CorrectionBatcher, which
+ * answers all the requests that arrive together in one pass over the Corrector, on one batching
+ * thread per processor. A /corrections request fails with 503 when MAX_PENDING_CORRECTIONS
+ * requests are already waiting, or when it is not answered within CORRECTIONS_TIMEOUT_MILLIS; a
+ * request that timed out is withdrawn, so the Corrector never works for a client that has gone.
+ *
+ * <p>The JDK server leaves Nagle's algorithm on, which holds back each small response until the
+ * client's delayed ACK, about 40 ms on Linux. Latency sensitive deployments should launch the JVM
+ * with -Dsun.net.httpserver.nodelay=true, as main does when it is not set. The server reads the
+ * property once, when the first server of the process starts.
+ */
+public class SpellCheckServer implements AutoCloseable {
+  /** The largest document /check accepts, in bytes. */
+  public static final int MAX_DOCUMENT_BYTES = 16 << 20;
+
+  /** How long a /corrections request waits for its batch to be answered, in milliseconds. */
+  public static final long CORRECTIONS_TIMEOUT_MILLIS = 10_000;
+
+  /** The most /corrections requests answered in one pass over the Corrector. */
+  static final int MAX_BATCH = 256;
+
+  /** The most /corrections requests waiting for a batch; any more fail with 503 at once. */
+  public static final int MAX_PENDING_CORRECTIONS = 4096;
+
+  private final Dictionary dict;
+  private final SpellChecker checker;
+  private final CorrectionBatcher batcher;
+  private final ExecutorService executor;
+  private final HttpServer server;
+
+  /** An error to report to the client with the argued HTTP status. */
+  private static final class RequestException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    final int status;
+
+    RequestException(int status, String message) {
+      super(message);
+      this.status = status;
+    }
+  }
+
+  /** Answers one endpoint with the body of a JSON response. */
+  private interface Endpoint {
+    String handle(HttpExchange exchange, Map<String, String> query)
+        throws IOException, RequestException;
+  }
+
+  /**
+   * Starts a server on the argued address.
+   *
+   * @param dict The dictionary shared by every request
+   * @param corrector The corrector shared by every request. It must be thread safe, since
+   *     documents are checked concurrently.
+   * @param address The address to listen on; port 0 picks a free port
+   * @throws IOException If the server cannot listen on the address
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public SpellCheckServer(Dictionary dict, Corrector corrector, InetSocketAddress address)
+      throws IOException {
+    if (dict == null || corrector == null || address == null) {
+      throw new IllegalArgumentException();
+    }
+    this.dict = dict;
+    this.checker = new SpellChecker(corrector, dict);
+    this.server = HttpServer.create(address, 0);
+    this.executor = newRequestExecutor();
+    this.batcher = new CorrectionBatcher(corrector, MAX_BATCH,
+        Runtime.getRuntime().availableProcessors(), MAX_PENDING_CORRECTIONS);
+    server.setExecutor(executor);
+    server.createContext("/isWord", exchange -> handle(exchange, "GET", this::isWord));
+    server.createContext("/corrections", exchange -> handle(exchange, "GET", this::corrections));
+    server.createContext("/check", exchange -> handle(exchange, "POST", this::check));
+    server.start();
+  }
+
+  /**
+   * Returns an executor that runs each task on a new virtual thread. Virtual threads are only
+   * available from Java 21, so the factory is looked up reflectively; on older JDKs, or if they are
+   * disabled, a cached pool of daemon threads is returned instead.
+   *
+   * @return An executor for requests
+   */
+  static ExecutorService newRequestExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      return Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "SpellCheckServer request");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return The local port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Returns the average number of /corrections requests answered per pass over the Corrector.
+   *
+   * @return The mean batch size, or 0 if there have been no requests
+   */
+  public double getMeanBatchSize() {
+    return batcher.getMeanBatchSize();
+  }
+
+  /**
+   * Returns the fraction of /corrections requests that were answered without calling the
+   * Corrector, because another request of the same batch asked about the same word.
+   *
+   * @return The fraction of requests shared, or 0 if there have been none
+   */
+  public double getSharedFraction() {
+    return batcher.getSharedFraction();
+  }
+
+  /** Stops the server, abandoning requests in progress. */
+  public void close() {
+    server.stop(0);
+    batcher.close();
+    executor.shutdownNow();
+  }
+
+  private String isWord(HttpExchange exchange, Map<String, String> query)
+      throws RequestException {
+    String word = requireWord(query);
+    StringBuilder json = new StringBuilder("{\"word\":");
+    appendString(json, word);
+    return json.append(",\"isWord\":").append(dict.isWord(word)).append('}').toString();
+  }
+
+  private String corrections(HttpExchange exchange, Map<String, String> query)
+      throws RequestException {
+    String word = requireWord(query);
+    Future<Set<String>> pending;
+    try {
+      pending = batcher.getCorrections(word);
+    } catch (RejectedExecutionException e) {
+      throw new RequestException(503, "corrections rejected: " + e.getMessage());
+    }
+    Set<String> corrections;
+    try {
+      corrections = pending.get(CORRECTIONS_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IllegalArgumentException) {
+        throw new RequestException(400, "not a word: " + word);
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CompletionException(e.getCause());
+    } catch (TimeoutException e) {
+      pending.cancel(false);
+      throw new RequestException(503, "corrections timed out: " + word);
+    } catch (InterruptedException e) {
+      pending.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException(e);
+    }
+    List<String> sorted = new ArrayList<>(corrections);
+    Collections.sort(sorted);
+    StringBuilder json = new StringBuilder("{\"word\":");
+    appendString(json, word);
+    json.append(",\"corrections\":");
+    appendStrings(json, sorted);
+    return json.append('}').toString();
+  }
+
+  private String check(HttpExchange exchange, Map<String, String> query)
+      throws IOException, RequestException {
+    CorrectionPolicy policy;
+    String name = query.getOrDefault("policy", "leave");
+    if (name.equals("leave")) {
+      policy = CorrectionPolicy.LEAVE;
+    } else if (name.equals("first")) {
+      policy = CorrectionPolicy.FIRST_SUGGESTION;
+    } else if (name.equals("best")) {
+      policy = CorrectionPolicy.BEST_RANKED;
+    } else {
+      throw new RequestException(400, "unknown policy: " + name);
+    }
+    byte[] document;
+    try (InputStream body = exchange.getRequestBody()) {
+      document = body.readNBytes(MAX_DOCUMENT_BYTES + 1);
+    }
+    if (document.length > MAX_DOCUMENT_BYTES) {
+      throw new RequestException(413, "document larger than " + MAX_DOCUMENT_BYTES + " bytes");
+    }
+
+    StringWriter text = new StringWriter(document.length);
+    List<Misspelling> misspellings = checker.checkDocument(
+        new InputStreamReader(new ByteArrayInputStream(document), StandardCharsets.UTF_8), text,
+        policy);
+    StringBuilder json = new StringBuilder(document.length + 64 * misspellings.size() + 32);
+    json.append("{\"text\":");
+    appendString(json, text.toString());
+    json.append(",\"misspellings\":[");
+    for (int i = 0; i < misspellings.size(); i++) {
+      Misspelling m = misspellings.get(i);
+      json.append(i == 0 ? "" : ",").append("{\"offset\":").append(m.getOffset());
+      json.append(",\"word\":");
+      appendString(json, m.getWord());
+      json.append(",\"suggestions\":");
+      appendStrings(json, m.getSuggestions());
+      json.append(",\"replacement\":");
+      appendString(json, m.getReplacement());
+      json.append('}');
+    }
+    return json.append("]}").toString();
+  }
+
+  /** Runs an endpoint and sends its response, or the error it raised. */
+  private static void handle(HttpExchange exchange, String method, Endpoint endpoint)
+      throws IOException {
+    int status = 200;
+    String body;
+    try {
+      String path = exchange.getRequestURI().getPath();
+      if (!path.equals(exchange.getHttpContext().getPath())) {
+        throw new RequestException(404, "not found: " + path);
+      }
+      if (!exchange.getRequestMethod().equals(method)) {
+        exchange.getResponseHeaders().set("Allow", method);
+        throw new RequestException(405, "method not allowed: " + exchange.getRequestMethod());
+      }
+      body = endpoint.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+    } catch (RequestException e) {
+      status = e.status;
+      body = error(e.getMessage());
+    } catch (RejectedExecutionException e) {
+      status = 503;
+      body = error("server is shutting down");
+    } catch (RuntimeException e) {
+      status = 500;
+      body = error(String.valueOf(e));
+    }
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static Map<String, String> parseQuery(String query) throws RequestException {
+    Map<String, String> parameters = new HashMap<>();
+    if (query == null) {
+      return parameters;
+    }
+    try {
+      for (String pair : query.split("&")) {
+        int equals = pair.indexOf('=');
+        String key = equals < 0 ? pair : pair.substring(0, equals);
+        String value = equals < 0 ? "" : pair.substring(equals + 1);
+        parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+            URLDecoder.decode(value, StandardCharsets.UTF_8));
+      }
+    } catch (IllegalArgumentException e) {
+      throw new RequestException(400, "malformed query: " + query);
+    }
+    return parameters;
+  }
+
+  private static String requireWord(Map<String, String> query) throws RequestException {
+    String word = query.get("word");
+    if (word == null || word.isEmpty()) {
+      throw new RequestException(400, "missing parameter: word");
+    }
+    return word;
+  }
+
+  private static String error(String message) {
+    StringBuilder json = new StringBuilder("{\"error\":");
+    appendString(json, message);
+    return json.append('}').toString();
+  }
+
+  private static void appendStrings(StringBuilder json, List<String> strings) {
+    json.append('[');
+    for (int i = 0; i < strings.size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendString(json, strings.get(i));
+    }
+    json.append(']');
+  }
+
+  /** Appends a string as a JSON string literal. */
+  static void appendString(StringBuilder json, String s) {
+    json.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c == '\n') {
+        json.append("\\n");
+      } else if (c == '\r') {
+        json.append("\\r");
+      } else if (c == '\t') {
+        json.append("\\t");
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  /**
+   * Serves a dictionary file on the loopback interface until the process is killed.
+   *
+   * <pre>
+   * java SpellCheckServer dictionary.txt [port] [corrections.txt]
+   * </pre>
+   *
+   * <p>Without a corrections file, corrections come from a SwapCorrector. Nagle's algorithm is
+   * turned off unless sun.net.httpserver.nodelay is set on the command line.
+   *
+   * @param args The dictionary file, optionally the port (default 8080) and a corrections file
+   * @throws Exception If the files cannot be read or the port is taken
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("usage: java SpellCheckServer dictionary.txt [port] [corrections.txt]");
+      System.exit(2);
+    }
+    System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+    Dictionary dict = Dictionary.make(args[0]);
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+    Corrector corrector = args.length > 2 ? FileCorrector.make(args[2]) : new SwapCorrector(dict);
+    SpellCheckServer server = new SpellCheckServer(
+        dict, corrector, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    System.out.println("SpellCheckServer listening on port " + server.getPort());
+  }
+}
@@ -1,9 +1,17 @@
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -26,6 +34,8 @@ import java.util.Scanner;
 public class SpellChecker {
   private Corrector corr;
   private Dictionary dict;
+  private final SpellCheckListener listener;
+  private final SuggestionRanker ranker;
 
   /**
    * Constructs a SpellChecker
@@ -34,8 +44,39 @@ public class SpellChecker {
    * @param d A Dictionary
    */
   public SpellChecker(Corrector c, Dictionary d) {
+    this(c, d, null);
+  }
+
+  /**
+   * Constructs a SpellChecker that reports how its non-interactive checks spend their time to a
+   * listener. Without a listener, checking takes no timestamps at all.
+   *
+   * @param c A Corrector
+   * @param d A Dictionary
+   * @param listener Receives measurements of every document checked, or null for none
+   * @see SpellCheckMetrics
+   */
+  public SpellChecker(Corrector c, Dictionary d, SpellCheckListener listener) {
+    this(c, d, listener, null);
+  }
+
+  /**
+   * Constructs a SpellChecker that offers the best few corrections of each misspelling, best
+   * first, instead of all of them alphabetically. The order is that of the ranker: by edit
+   * distance, then by the frequencies of the Dictionary the ranker was given.
+   *
+   * @param c A Corrector
+   * @param d A Dictionary
+   * @param listener Receives measurements of every document checked, or null for none
+   * @param ranker Picks and orders the suggestions, or null to offer every correction
+   *     alphabetically
+   */
+  public SpellChecker(Corrector c, Dictionary d, SpellCheckListener listener,
+      SuggestionRanker ranker) {
     corr = c;
     dict = d;
+    this.listener = listener;
+    this.ranker = ranker;
   }
 
   /**
@@ -48,7 +89,7 @@ public class SpellChecker {
    * @return The next integer from the argued Scanner (guaranteed to be between the argued min and
    *     max)
    */
-  private int getNextInt(int min, int max, Scanner sc) {
+  private static int getNextInt(int min, int max, Scanner sc) {
     while (true) {
       try {
         int choice = Integer.parseInt(sc.next());
@@ -69,7 +110,7 @@ public class SpellChecker {
    * @param sc A Scanner
    * @return The next String from the argued Scanner
    */
-  private String getNextString(Scanner sc) {
+  private static String getNextString(Scanner sc) {
     return sc.next();
   }
 
@@ -81,38 +122,255 @@ public class SpellChecker {
    *
    * <p>You may assume all of the inputs to this method are non-null.
    *
+   * <p>The check runs on a StreamingSpellChecker with the policy
+   * CorrectionPolicy.interactive(input), so the prompts are asked in document order from one of its
+   * stage threads while the rest of the document is read ahead, and the output is written once the
+   * answers are in.
+   *
    * @param in The source document to spell check
    * @param input An InputStream from which user input is obtained
    * @param out The target document to which the corrected output is written
-   * @throws IOException if error while reading
+   * @throws IOException if error while reading or writing
    */
   public void checkDocument(Reader in, InputStream input, Writer out) throws IOException {
-    Scanner sc = new Scanner(input);
+    new StreamingSpellChecker(this).checkDocument(in, out, CorrectionPolicy.interactive(input),
+        null);
+  }
+
+  /**
+   * Spell checks a given document without user interaction. Misspelled words are corrected as
+   * decided by the argued policy; everything else is output verbatim.
+   *
+   * <p>This method does not modify the SpellChecker, so one SpellChecker can check many documents
+   * concurrently as long as its Corrector and policy are thread safe.
+   *
+   * @param in The source document to spell check
+   * @param out The target document to which the corrected output is written, or null if only the
+   *     list of misspellings is wanted
+   * @param policy Decides the replacement for each misspelled word
+   * @return The misspellings found, in document order
+   * @throws IOException if error while reading or writing
+   * @throws IllegalArgumentException If in or policy is null
+   */
+  public List<Misspelling> checkDocument(Reader in, Writer out, CorrectionPolicy policy)
+      throws IOException {
+    if (in == null || policy == null) {
+      throw new IllegalArgumentException();
+    }
     TokenScanner ts = new TokenScanner(in);
+    List<Misspelling> misspellings = new ArrayList<>();
+    DocumentTimer timer = startTimer();
+
+    while (ts.advance()) {
+      if (timer != null) {
+        timer.scanned(ts.isWordToken());
+      }
+      boolean correct = !ts.isWordToken() || dict.isWord(ts.token());
+      if (timer != null) {
+        timer.lap(SpellCheckListener.Stage.LOOKUP);
+      }
+      if (correct) {
+        if (out != null) {
+          out.write(ts.tokenChars(), 0, ts.tokenLength());
+          if (timer != null) {
+            timer.lap(SpellCheckListener.Stage.WRITE);
+          }
+        }
+        continue;
+      }
+      String word = ts.token().toString();
+      List<String> suggestions = suggestions(word);
+      long correctorNanos = timer == null ? 0 : timer.lap(SpellCheckListener.Stage.CORRECT);
+      String replacement = policy.choose(word, suggestions);
+      if (timer != null) {
+        timer.misspelled(word, suggestions, replacement, correctorNanos);
+      }
+      misspellings.add(new Misspelling(ts.tokenOffset(), word, suggestions, replacement));
+
+      if (out != null) {
+        out.write(replacement);
+        if (timer != null) {
+          timer.lap(SpellCheckListener.Stage.WRITE);
+        }
+      }
+    }
+    if (timer != null) {
+      timer.finish();
+    }
+    return misspellings;
+  }
 
-    while (ts.hasNext()) {
-      String nextToken = ts.next();
+  /**
+   * Interactively spell checks a UTF-8 file. This is checkDocument with a Reader and a Writer over
+   * the files, so it runs on a StreamingSpellChecker like that method; the memory-mapped
+   * checkDocument(Path, Path, CorrectionPolicy) is left to non-interactive checks, whose speed is
+   * not set by the person answering. Malformed input is replaced with U+FFFD in the output.
+   *
+   * @param in The source document to spell check
+   * @param input An InputStream from which user input is obtained
+   * @param out The target document to which the corrected output is written. It is created if it
+   *     does not exist and truncated if it does.
+   * @throws IOException if error while reading or writing
+   * @throws IllegalArgumentException If in or out is null
+   */
+  public void checkDocument(Path in, InputStream input, Path out) throws IOException {
+    if (in == null || out == null) {
+      throw new IllegalArgumentException();
+    }
+    try (Reader reader = new InputStreamReader(Files.newInputStream(in), StandardCharsets.UTF_8);
+        Writer writer = Channels.newWriter(openOutput(out), StandardCharsets.UTF_8)) {
+      checkDocument(new BufferedReader(reader), input, writer);
+    }
+  }
 
-      if (TokenScanner.isWord(nextToken)) {
+  /**
+   * Spell checks a UTF-8 file without user interaction by memory-mapping it. Misspelled words are
+   * corrected as decided by the argued policy. Only misspelled words are ever turned into Strings,
+   * and every stretch of the input that is left unchanged is copied to the output with
+   * FileChannel.transferTo.
+   *
+   * @param in The source document to spell check
+   * @param out The target document to which the corrected output is written. It is created if it
+   *     does not exist and truncated if it does.
+   * @param policy Decides the replacement for each misspelled word
+   * @throws IOException if error while reading or writing
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public void checkDocument(Path in, Path out, CorrectionPolicy policy) throws IOException {
+    if (in == null || out == null || policy == null) {
+      throw new IllegalArgumentException();
+    }
+    try (FileChannel source = FileChannel.open(in, StandardOpenOption.READ);
+        FileChannel target = openOutput(out)) {
+      MappedTokenScanner ts = new MappedTokenScanner(source);
+      long copied = 0;
+      DocumentTimer timer = startTimer();
 
-        if (!dict.isWord(nextToken)) {
-            
-          List<String> corrections = new LinkedList<>();
-          corrections.addAll(corr.getCorrections(nextToken));
-          Collections.sort(corrections);
-          int userSelection = getNextInt(0, corrections.size() + 1, sc);
+      while (ts.advance()) {
+        if (timer != null) {
+          timer.scanned(ts.isWordToken());
+        }
+        boolean correct = !ts.isWordToken() || dict.isWord(ts.token());
+        if (timer != null) {
+          timer.lap(SpellCheckListener.Stage.LOOKUP);
+        }
+        if (correct) {
+          continue;
+        }
+        String word = ts.token().toString();
+        List<String> suggestions = suggestions(word);
+        long correctorNanos = timer == null ? 0 : timer.lap(SpellCheckListener.Stage.CORRECT);
+        String correction = policy.choose(word, suggestions);
+        if (timer != null) {
+          timer.misspelled(word, suggestions, correction, correctorNanos);
+        }
 
-          if (userSelection > 1) {
-            nextToken = corrections.get(userSelection - 2);
-          } else if (userSelection == 1) {
-            nextToken = getNextString(sc);
-          } else {
-            // leave token
+        if (!correction.equals(word)) {
+          transfer(source, copied, ts.tokenOffset(), target);
+          target.write(StandardCharsets.UTF_8.encode(correction));
+          copied = ts.tokenOffset() + ts.tokenByteLength();
+          if (timer != null) {
+            timer.lap(SpellCheckListener.Stage.WRITE);
           }
         }
       }
+      transfer(source, copied, source.size(), target);
+      if (timer != null) {
+        timer.lap(SpellCheckListener.Stage.WRITE);
+        timer.finish();
+      }
+    }
+  }
+
+  /**
+   * Asks the user how to correct a misspelled word. The corrections offered are numbered from 2;
+   * 1 reads a replacement from the user and 0 leaves the word.
+   *
+   * @param word The misspelled word
+   * @param corrections The corrections to offer, in order
+   * @param sc A Scanner over the user input
+   * @return The word to write in place of the misspelled word
+   */
+  static String chooseCorrection(String word, List<String> corrections, Scanner sc) {
+    int userSelection = getNextInt(0, corrections.size() + 1, sc);
+
+    if (userSelection > 1) {
+      return corrections.get(userSelection - 2);
+    } else if (userSelection == 1) {
+      return getNextString(sc);
+    } else {
+      // leave token
+      return word;
+    }
+  }
+
+  /**
+   * Starts measuring a document for this SpellChecker's listener.
+   *
+   * @return A new DocumentTimer, or null if this SpellChecker has no listener
+   */
+  DocumentTimer startTimer() {
+    return listener == null ? null : new DocumentTimer(listener, corr);
+  }
+
+  /**
+   * Determines whether a word token is missing from this SpellChecker's dictionary.
+   *
+   * @param word A word token
+   * @return True if the word should be corrected
+   */
+  boolean isMisspelled(CharSequence word) {
+    return !dict.isWord(word);
+  }
+
+  /**
+   * Returns the suggestions for a misspelled word: the best few corrections, best first, if this
+   * SpellChecker has a ranker, and otherwise all of them sorted alphabetically.
+   *
+   * @param word The misspelled word
+   * @return The suggestions in order
+   */
+  List<String> suggestions(String word) {
+    if (ranker != null) {
+      return ranker.rank(word, corr.getCorrections(word));
+    }
+    List<String> corrections = new ArrayList<>(corr.getCorrections(word));
+    Collections.sort(corrections);
+    return corrections;
+  }
 
-      out.write(nextToken);
+  /**
+   * Copies the bytes [from, to) of the source channel onto the end of the target channel.
+   *
+   * @param source The channel to copy from
+   * @param from Offset of the first byte to copy
+   * @param to Offset one past the last byte to copy
+   * @param target The channel to append to
+   * @throws IOException if error while copying
+   */
+  static void transfer(FileChannel source, long from, long to, FileChannel target)
+      throws IOException {
+    while (from < to) {
+      long n = source.transferTo(from, to - from, target);
+      if (n <= 0) {
+        throw new IOException("Could not copy bytes " + from + " to " + to);
+      }
+      from += n;
     }
   }
+
+  /**
+   * Opens a file for writing corrected output, creating it or truncating it as needed.
+   *
+   * @param out The file to write
+   * @return A channel positioned at the start of the empty file
+   * @throws IOException if the file cannot be opened
+   */
+  static FileChannel openOutput(Path out) throws IOException {
+    return FileChannel.open(
+        out,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
 }
@@ -0,0 +1,409 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Spell checks a stream without user interaction, as a pipeline of three stages connected by
+ * bounded queues: the calling thread splits the input into tokens, a second thread looks the words
+ * up and asks the Corrector and the policy about misspelled ones, and a third writes the output and
+ * reports each misspelling, in document order, as a Misspelling event.
+ *
+ * <p>Tokens travel between the stages in batches, so the queues are touched once per few hundred
+ * tokens. Because each queue holds a fixed number of batches, a slow stage holds up the stages
+ * before it instead of letting text pile up in memory. Decisions are made by an
+ * AsyncCorrectionPolicy: while a decision is pending, the lookup stage carries on with the text
+ * that follows, and only the writer waits for it. The writer waits at most the decision timeout
+ * from when the decision was started, after which the check fails, so a decision that never
+ * completes cannot hold the check and its threads forever.
+ *
+ * <p>Any CorrectionPolicy can be used. A synchronous policy is asked on the lookup stage, so its
+ * decisions are already made when the writer gets to them and the decision timeout never applies;
+ * this is how the interactive SpellChecker.checkDocument overloads run
+ * CorrectionPolicy.interactive, however long the person takes to answer.
+ */
+public class StreamingSpellChecker {
+  /** The number of batches each queue of StreamingSpellChecker(SpellChecker) holds. */
+  public static final int DEFAULT_QUEUE_BATCHES = 16;
+
+  /** How long StreamingSpellChecker(SpellChecker) waits for a decision, in milliseconds. */
+  public static final long DEFAULT_DECISION_TIMEOUT_MILLIS = 60_000;
+
+  /** The most tokens in a batch. */
+  static final int BATCH_TOKENS = 512;
+
+  /** The number of characters after which a batch is passed on even if it has room for tokens. */
+  static final int BATCH_CHARS = 16384;
+
+  /** Runs the lookup and write stages of checks that are not given an executor. */
+  private static final ExecutorService STAGES = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "StreamingSpellChecker stage");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Marks the end of the stream in a queue. */
+  private static final Batch END = new Batch(-1);
+
+  private final SpellChecker checker;
+  private final Executor executor;
+  private final int queueBatches;
+  private final long decisionTimeoutNanos;
+
+  /**
+   * Constructs a StreamingSpellChecker that runs its stages on a shared pool of daemon threads.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @throws IllegalArgumentException If the argued SpellChecker is null
+   */
+  public StreamingSpellChecker(SpellChecker checker) {
+    this(checker, STAGES, DEFAULT_QUEUE_BATCHES);
+  }
+
+  /**
+   * Constructs a StreamingSpellChecker.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @param executor Runs the lookup and write stages. Each check occupies two of its threads
+   *     until it returns, so it must be able to run two tasks per concurrent check at once.
+   * @param queueBatches The number of batches each queue between stages holds
+   * @throws IllegalArgumentException If checker or executor is null, or queueBatches is less than
+   *     one
+   */
+  public StreamingSpellChecker(SpellChecker checker, Executor executor, int queueBatches) {
+    this(checker, executor, queueBatches, DEFAULT_DECISION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructs a StreamingSpellChecker with a decision timeout.
+   *
+   * @param checker Supplies the Dictionary and Corrector
+   * @param executor Runs the lookup and write stages. Each check occupies two of its threads
+   *     until it returns, so it must be able to run two tasks per concurrent check at once.
+   * @param queueBatches The number of batches each queue between stages holds
+   * @param decisionTimeout The longest the writer waits for a decision, counted from when the
+   *     policy was asked
+   * @param unit The unit of the timeout
+   * @throws IllegalArgumentException If checker, executor or unit is null, queueBatches is less
+   *     than one or the timeout is not positive
+   */
+  public StreamingSpellChecker(SpellChecker checker, Executor executor, int queueBatches,
+      long decisionTimeout, TimeUnit unit) {
+    if (checker == null || executor == null || queueBatches < 1 || unit == null
+        || decisionTimeout <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.checker = checker;
+    this.executor = executor;
+    this.queueBatches = queueBatches;
+    this.decisionTimeoutNanos = unit.toNanos(decisionTimeout);
+  }
+
+  /**
+   * Spell checks a stream, deciding each misspelling immediately with the argued policy.
+   *
+   * @param in The source document to spell check
+   * @param out The target to which the corrected output is written, or null if only the events
+   *     are wanted
+   * @param policy Decides the replacement for each misspelled word
+   * @param events Receives each misspelling in document order, or null
+   * @return The number of misspellings
+   * @throws IOException if error while reading or writing
+   * @throws IllegalArgumentException If in or policy is null
+   */
+  public long checkDocument(Reader in, Writer out, CorrectionPolicy policy,
+      Consumer<? super Misspelling> events) throws IOException {
+    if (policy == null) {
+      throw new IllegalArgumentException();
+    }
+    return checkDocumentAsync(in, out, AsyncCorrectionPolicy.of(policy), events);
+  }
+
+  /**
+   * Spell checks a stream, deciding misspellings asynchronously with the argued policy. Returns
+   * once the whole output has been written and every event delivered. If any stage fails, the
+   * others stop and the failure is thrown here.
+   *
+   * @param in The source document to spell check
+   * @param out The target to which the corrected output is written, or null if only the events
+   *     are wanted. It is written from another thread, and is not flushed.
+   * @param policy Decides the replacement for each misspelled word
+   * @param events Receives each misspelling in document order, from another thread, or null
+   * @return The number of misspellings
+   * @throws IOException if error while reading or writing, or if a decision does not complete
+   *     within the decision timeout
+   * @throws IllegalArgumentException If in or policy is null
+   */
+  public long checkDocumentAsync(Reader in, Writer out, AsyncCorrectionPolicy policy,
+      Consumer<? super Misspelling> events) throws IOException {
+    if (in == null || policy == null) {
+      throw new IllegalArgumentException();
+    }
+    Run run = new Run(out, policy, events);
+    executor.execute(run::lookUp);
+    executor.execute(run::write);
+    run.scan(in);
+    return run.await();
+  }
+
+  /** A misspelled word of a batch and its pending replacement. */
+  private static final class Decision {
+    final int token;
+    final long offset;
+    final String word;
+    final List<String> suggestions;
+    final CompletableFuture<String> replacement;
+    final long started;
+
+    Decision(int token, long offset, String word, List<String> suggestions,
+        CompletableFuture<String> replacement, long started) {
+      this.token = token;
+      this.offset = offset;
+      this.word = word;
+      this.suggestions = suggestions;
+      this.replacement = replacement;
+      this.started = started;
+    }
+  }
+
+  /**
+   * Consecutive tokens, copied end to end into one array, and the decisions about those that are
+   * misspelled. A batch is filled by one stage and then handed to the next through a queue.
+   */
+  private static final class Batch {
+    final long offset;
+    char[] chars = new char[1024];
+    int length;
+    final int[] ends = new int[BATCH_TOKENS];
+    final boolean[] words = new boolean[BATCH_TOKENS];
+    int count;
+    final List<Decision> decisions = new ArrayList<>();
+
+    Batch(long offset) {
+      this.offset = offset;
+    }
+
+    boolean isFull() {
+      return count == BATCH_TOKENS || length >= BATCH_CHARS;
+    }
+
+    void add(char[] token, int tokenLength, boolean word) {
+      if (length + tokenLength > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + tokenLength));
+      }
+      System.arraycopy(token, 0, chars, length, tokenLength);
+      length += tokenLength;
+      ends[count] = length;
+      words[count++] = word;
+    }
+
+    int start(int token) {
+      return token == 0 ? 0 : ends[token - 1];
+    }
+  }
+
+  /** The queues and state of one check. */
+  private final class Run {
+    private final Writer out;
+    private final AsyncCorrectionPolicy policy;
+    private final Consumer<? super Misspelling> events;
+    private final BlockingQueue<Batch> scanned = new ArrayBlockingQueue<>(queueBatches);
+    private final BlockingQueue<Batch> checked = new ArrayBlockingQueue<>(queueBatches);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CountDownLatch written = new CountDownLatch(1);
+    private long misspellings;
+
+    Run(Writer out, AsyncCorrectionPolicy policy, Consumer<? super Misspelling> events) {
+      this.out = out;
+      this.policy = policy;
+      this.events = events;
+    }
+
+    /** The first stage: splits the input into batches of tokens. */
+    void scan(Reader in) {
+      try {
+        TokenScanner ts = new TokenScanner(in);
+        Batch batch = new Batch(0);
+        while (failure.get() == null && ts.advance()) {
+          if (batch.isFull()) {
+            put(scanned, batch);
+            batch = new Batch(ts.tokenOffset());
+          }
+          batch.add(ts.tokenChars(), ts.tokenLength(), ts.isWordToken());
+        }
+        if (batch.count > 0) {
+          put(scanned, batch);
+        }
+      } catch (Throwable e) {
+        fail(e);
+      } finally {
+        put(scanned, END);
+      }
+    }
+
+    /** The second stage: finds the misspelled words of each batch and starts their decisions. */
+    void lookUp() {
+      CharSlice slice = new CharSlice();
+      try {
+        for (Batch batch = take(scanned); batch != END; batch = take(scanned)) {
+          if (failure.get() != null) {
+            continue;
+          }
+          try {
+            lookUp(batch, slice);
+            put(checked, batch);
+          } catch (Throwable e) {
+            fail(e);
+          }
+        }
+      } finally {
+        put(checked, END);
+      }
+    }
+
+    private void lookUp(Batch batch, CharSlice slice) {
+      for (int i = 0; i < batch.count; i++) {
+        int start = batch.start(i);
+        int length = batch.ends[i] - start;
+        if (!batch.words[i] || !checker.isMisspelled(slice.set(batch.chars, start, length))) {
+          continue;
+        }
+        String word = new String(batch.chars, start, length);
+        List<String> suggestions = checker.suggestions(word);
+        long started = System.nanoTime();
+        CompletableFuture<String> replacement =
+            policy.choose(word, suggestions).toCompletableFuture();
+        batch.decisions.add(
+            new Decision(i, batch.offset + start, word, suggestions, replacement, started));
+      }
+    }
+
+    /** The third stage: writes each batch once its decisions are made, and reports them. */
+    void write() {
+      try {
+        for (Batch batch = take(checked); batch != END; batch = take(checked)) {
+          if (failure.get() != null) {
+            continue;
+          }
+          try {
+            write(batch);
+          } catch (Throwable e) {
+            fail(e);
+          }
+        }
+      } finally {
+        written.countDown();
+      }
+    }
+
+    private void write(Batch batch) throws IOException, InterruptedException,
+        ExecutionException {
+      int copied = 0;
+      for (Decision decision : batch.decisions) {
+        String replacement;
+        try {
+          long remaining = decision.started + decisionTimeoutNanos - System.nanoTime();
+          replacement = decision.replacement.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          decision.replacement.cancel(true);
+          throw new IOException("No decision about \"" + decision.word + "\" within "
+              + TimeUnit.NANOSECONDS.toMillis(decisionTimeoutNanos) + " ms", e);
+        }
+        misspellings++;
+        if (out != null) {
+          out.write(batch.chars, copied, batch.start(decision.token) - copied);
+          out.write(replacement);
+        }
+        copied = batch.ends[decision.token];
+        if (events != null) {
+          events.accept(
+              new Misspelling(decision.offset, decision.word, decision.suggestions, replacement));
+        }
+      }
+      if (out != null) {
+        out.write(batch.chars, copied, batch.length - copied);
+      }
+    }
+
+    /** Waits for the writer to finish and throws the first failure of any stage. */
+    long await() throws IOException {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          written.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      Throwable e = failure.get();
+      if (e == null) {
+        return misspellings;
+      } else if (e instanceof IOException) {
+        throw (IOException) e;
+      } else if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } else if (e instanceof RuntimeException) {
+        throw (RuntimeException) e;
+      } else if (e instanceof Error) {
+        throw (Error) e;
+      }
+      throw new IOException(e);
+    }
+
+    /** Records the first failure, after which every stage discards what it receives. */
+    private void fail(Throwable e) {
+      if ((e instanceof ExecutionException || e instanceof CompletionException)
+          && e.getCause() != null) {
+        e = e.getCause();
+      }
+      failure.compareAndSet(null, e);
+    }
+
+    /**
+     * Takes the next batch of a queue. An interruption fails the check but does not stop the
+     * take, since every stage must run until the end marker to keep the others from blocking.
+     */
+    private Batch take(BlockingQueue<Batch> queue) {
+      while (true) {
+        try {
+          return queue.take();
+        } catch (InterruptedException e) {
+          fail(e);
+        }
+      }
+    }
+
+    /** Puts a batch on a queue, failing the check on interruption like take. */
+    private void put(BlockingQueue<Batch> queue, Batch batch) {
+      while (true) {
+        try {
+          queue.put(batch);
+          return;
+        } catch (InterruptedException e) {
+          fail(e);
+        }
+      }
+    }
+  }
+}
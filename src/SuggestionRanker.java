@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the best few spelling suggestions from the candidates a Corrector proposes, best first.
+ *
+ * <p>Candidates are ordered by their Damerau-Levenshtein distance from the misspelled word,
+ * ignoring case, then by their frequency in the Dictionary, most frequent first, and finally
+ * alphabetically, so the order is total and does not depend on the order of the candidates. A
+ * Dictionary without frequencies ranks by distance alone.
+ *
+ * <p>Edit-distance correctors can propose hundreds of candidates, of which only the first few are
+ * ever shown or chosen. Rather than sorting them all, the ranker keeps the best limit candidates
+ * seen so far in a bounded heap whose head is the worst of them. Once the heap is full, each
+ * further candidate's distance is computed with the head's distance as the bound, so a candidate
+ * that cannot make the cut is rejected after a few table rows. Ranking n candidates thus takes
+ * O(n log limit) comparisons and allocates only for the candidates that enter the heap.
+ *
+ * <p>A SuggestionRanker holds no mutable state and can be shared by many threads.
+ */
+public class SuggestionRanker {
+  /** The number of suggestions kept by SuggestionRanker(Dictionary). */
+  public static final int DEFAULT_LIMIT = 10;
+
+  private final Dictionary dict;
+  private final int limit;
+
+  /** A candidate kept in the heap, with its sort keys. */
+  private static final class Ranked implements Comparable<Ranked> {
+    final String word;
+    final int distance;
+    final long frequency;
+
+    Ranked(String word, int distance, long frequency) {
+      this.word = word;
+      this.distance = distance;
+      this.frequency = frequency;
+    }
+
+    /** Orders better candidates first. */
+    public int compareTo(Ranked other) {
+      return compare(word, distance, frequency, other);
+    }
+
+    /** Compares the keys of a candidate with a kept one, ordering better candidates first. */
+    static int compare(String word, int distance, long frequency, Ranked other) {
+      if (distance != other.distance) {
+        return Integer.compare(distance, other.distance);
+      }
+      if (frequency != other.frequency) {
+        return Long.compare(other.frequency, frequency);
+      }
+      return word.compareTo(other.word);
+    }
+  }
+
+  /**
+   * Constructs a SuggestionRanker that keeps DEFAULT_LIMIT suggestions.
+   *
+   * @param dict The Dictionary whose frequencies break ties of distance
+   * @throws IllegalArgumentException If the argued Dictionary is null
+   */
+  public SuggestionRanker(Dictionary dict) {
+    this(dict, DEFAULT_LIMIT);
+  }
+
+  /**
+   * Constructs a SuggestionRanker.
+   *
+   * @param dict The Dictionary whose frequencies break ties of distance
+   * @param limit The most suggestions to keep
+   * @throws IllegalArgumentException If the argued Dictionary is null or limit is less than one
+   */
+  public SuggestionRanker(Dictionary dict, int limit) {
+    if (dict == null || limit < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.dict = dict;
+    this.limit = limit;
+  }
+
+  /**
+   * Returns the most suggestions to keep.
+   *
+   * @return The limit
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Ranks the candidate corrections of a misspelled word.
+   *
+   * @param word The misspelled word
+   * @param candidates The corrections proposed for it
+   * @return At most limit of the candidates, best first
+   * @throws IllegalArgumentException If an argument is null
+   */
+  public List<String> rank(String word, Collection<String> candidates) {
+    if (word == null || candidates == null) {
+      throw new IllegalArgumentException();
+    }
+    if (candidates.isEmpty()) {
+      return new ArrayList<>();
+    }
+    EditDistance distance = new EditDistance();
+    String lower = HashWordSet.lowerCase(word);
+    PriorityQueue<Ranked> heap =
+        new PriorityQueue<>(Math.min(limit, candidates.size()), Collections.reverseOrder());
+    for (String candidate : candidates) {
+      Ranked worst = heap.size() < limit ? null : heap.peek();
+      int bound = worst == null
+          ? Math.max(lower.length(), candidate.length())
+          : worst.distance;
+      int d = distance.damerau(lower, HashWordSet.lowerCase(candidate), bound);
+      if (d > bound) {
+        continue;
+      }
+      long frequency = dict.getFrequency(candidate);
+      if (worst == null) {
+        heap.add(new Ranked(candidate, d, frequency));
+      } else if (Ranked.compare(candidate, d, frequency, worst) < 0) {
+        heap.poll();
+        heap.add(new Ranked(candidate, d, frequency));
+      }
+    }
+    String[] best = new String[heap.size()];
+    for (int i = best.length - 1; i >= 0; i--) {
+      best[i] = heap.poll().word;
+    }
+    List<String> ranked = new ArrayList<>(best.length);
+    Collections.addAll(ranked, best);
+    return ranked;
+  }
+}
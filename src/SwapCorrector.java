@@ -49,24 +49,30 @@ public class SwapCorrector extends Corrector {
      *                                  letters and/or apostrophes) 
      */
     public Set<String> getCorrections(String wrong) {
-        Set<String> corrections = new TreeSet<>();
-        if (!TokenScanner.isWord(wrong) || wrong == null) {
+        if (wrong == null || !TokenScanner.isWord(wrong)) {
             throw new IllegalArgumentException();
         }
-        
-        String searchableWord = wrong.toLowerCase();
-        
-        for (int i = 1; i < wrong.length(); i++) {
-            String compareWord = searchableWord;
-            char firstSwap = searchableWord.charAt(i - 1);
-            char secondSwap = searchableWord.charAt(i);
-            compareWord = searchableWord.substring(0, i - 1) + secondSwap + 
-                firstSwap + searchableWord.substring(i + 1, wrong.length());
-            if (dict.isWord(compareWord)) {
-                corrections.add(compareWord);
+        Set<String> corrections = new TreeSet<>();
+
+        // Swap letters in place in one lowercase buffer and probe it directly, so that only
+        // accepted corrections become Strings.
+        int length = wrong.length();
+        char[] candidate = new char[length];
+        for (int i = 0; i < length; i++) {
+            candidate[i] = Character.toLowerCase(wrong.charAt(i));
+        }
+        for (int i = 1; i < length; i++) {
+            char firstSwap = candidate[i - 1];
+            char secondSwap = candidate[i];
+            candidate[i - 1] = secondSwap;
+            candidate[i] = firstSwap;
+            if (dict.isWord(candidate, 0, length)) {
+                corrections.add(new String(candidate));
             }
+            candidate[i - 1] = firstSwap;
+            candidate[i] = secondSwap;
         }
-        
+
         return matchCase(wrong, corrections);
     }
 }
@@ -0,0 +1,260 @@
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A Corrector that finds every dictionary word within a small edit distance using a precomputed
+ * deletion index, in the style of SymSpell.
+ *
+ * <p>If two words are within edit distance d of each other, then deleting at most d characters
+ * from each of them yields a common string. At construction, this Corrector generates every
+ * string obtainable by deleting up to maxDistance characters from the first prefixLength
+ * characters of each dictionary word and records which words produced it. A query then only
+ * generates the deletions of its own prefix, collects the words recorded for them, and verifies
+ * each candidate with a bounded edit-distance check.
+ *
+ * <p>The index does not store the deletion strings themselves, only their hashes. A hash
+ * collision merely adds a candidate that fails verification, so results are unaffected.
+ *
+ * <p>A larger prefixLength narrows the candidate lists but makes the index bigger; a larger
+ * maxDistance finds more distant corrections at a steep cost in memory.
+ *
+ * <p>If the Dictionary was made by withOverlay, words added to it are indexed separately as they
+ * arrive, and words removed from it are dropped from the results.
+ */
+public class SymSpellCorrector extends Corrector {
+  /** The maximum edit distance used by SymSpellCorrector(Dictionary). */
+  public static final int DEFAULT_MAX_DISTANCE = 2;
+
+  /** The prefix length used by SymSpellCorrector(Dictionary). */
+  public static final int DEFAULT_PREFIX_LENGTH = 7;
+
+  private final Dictionary dict;
+  private final int maxDistance;
+  private final int prefixLength;
+  private final WordIndex<Index> index;
+
+  /**
+   * Constructs a SymSpellCorrector with the default maximum distance and prefix length.
+   *
+   * @param dict The reference dictionary from which to draw corrections
+   * @throws IllegalArgumentException If the argued Dictionary is null
+   */
+  public SymSpellCorrector(Dictionary dict) {
+    this(dict, DEFAULT_MAX_DISTANCE, DEFAULT_PREFIX_LENGTH);
+  }
+
+  /**
+   * Constructs a SymSpellCorrector and builds its deletion index.
+   *
+   * @param dict The reference dictionary from which to draw corrections
+   * @param maxDistance The largest edit distance of a suggested correction
+   * @param prefixLength The number of leading characters of each word that are indexed
+   * @throws IllegalArgumentException If the argued Dictionary is null, maxDistance is less than
+   *     one, or prefixLength is not greater than maxDistance
+   */
+  public SymSpellCorrector(Dictionary dict, int maxDistance, int prefixLength) {
+    if (dict == null || maxDistance < 1 || prefixLength <= maxDistance) {
+      throw new IllegalArgumentException();
+    }
+    this.dict = dict;
+    this.maxDistance = maxDistance;
+    this.prefixLength = prefixLength;
+    this.index = new WordIndex<>(dict, Index::new);
+  }
+
+  /**
+   * Suggests as corrections every word in the Dictionary whose edit distance from the input word
+   * is between one and the maximum distance of this Corrector.
+   *
+   * <p>The corrections should match the case of the input; the matchCase method is helpful here.
+   *
+   * @param wrong The misspelled word
+   * @return A (potentially empty) set of proposed corrections
+   * @throws IllegalArgumentException If the input is not a valid word (i.e. not composed of only
+   *     letters and/or apostrophes)
+   */
+  public Set<String> getCorrections(String wrong) {
+    if (wrong == null || !TokenScanner.isWord(wrong)) {
+      throw new IllegalArgumentException();
+    }
+    String lower = HashWordSet.lowerCase(wrong);
+    Deletions deletions = new Deletions();
+    int n = deletions.generate(lower);
+    Set<String> corrections = new TreeSet<>();
+    EditDistance distance = new EditDistance();
+    for (Index i : index.indexes()) {
+      i.collect(lower, deletions.hashes, n, distance, corrections);
+    }
+    if (index.isOverlay()) {
+      corrections.removeIf(word -> !dict.isWord(word));
+    }
+    return matchCase(wrong, corrections);
+  }
+
+  /** The deletion index of one set of words. */
+  private final class Index {
+    private final String[] words;
+    private final int[] tableHashes;
+    private final int[] tableStarts;
+    private final int[] tableCounts;
+    private final int tableMask;
+    private final int[] postings;
+
+    Index(WordSet set) {
+      words = new String[set.size()];
+      int numWords = 0;
+      for (String word : set) {
+        words[numWords++] = word;
+      }
+
+      // Collect (hash, word id) pairs, then group them by hash.
+      Deletions deletions = new Deletions();
+      long[] pairs = new long[Math.max(16, words.length * 4)];
+      int numPairs = 0;
+      for (int id = 0; id < words.length; id++) {
+        int n = deletions.generate(words[id]);
+        if (numPairs + n > pairs.length) {
+          pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, numPairs + n));
+        }
+        for (int k = 0; k < n; k++) {
+          pairs[numPairs++] = ((long) deletions.hashes[k] << 32) | id;
+        }
+      }
+      Arrays.sort(pairs, 0, numPairs);
+
+      int numKeys = 0;
+      for (int i = 0; i < numPairs; i++) {
+        if (i == 0 || (int) (pairs[i] >> 32) != (int) (pairs[i - 1] >> 32)) {
+          numKeys++;
+        }
+      }
+      int capacity = Integer.highestOneBit(Math.max(numKeys * 2, 8) - 1) << 1;
+      tableMask = capacity - 1;
+      tableHashes = new int[capacity];
+      tableStarts = new int[capacity];
+      tableCounts = new int[capacity];
+      postings = new int[numPairs];
+      int slot = -1;
+      for (int i = 0; i < numPairs; i++) {
+        int hash = (int) (pairs[i] >> 32);
+        if (i == 0 || hash != (int) (pairs[i - 1] >> 32)) {
+          slot = hash & tableMask;
+          while (tableCounts[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+          }
+          tableHashes[slot] = hash;
+          tableStarts[slot] = i;
+        }
+        tableCounts[slot]++;
+        postings[i] = (int) pairs[i];
+      }
+    }
+
+    /**
+     * Adds to corrections every indexed word that shares one of the argued deletion hashes with
+     * the lowercase word and is within the maximum distance of it.
+     */
+    void collect(
+        String lower, int[] hashes, int n, EditDistance distance, Set<String> corrections) {
+      int[] candidates = new int[16];
+      int numCandidates = 0;
+      for (int k = 0; k < n; k++) {
+        int hash = hashes[k];
+        int slot = hash & tableMask;
+        while (tableCounts[slot] != 0) {
+          if (tableHashes[slot] == hash) {
+            int start = tableStarts[slot];
+            int count = tableCounts[slot];
+            if (numCandidates + count > candidates.length) {
+              int grown = Math.max(candidates.length * 2, numCandidates + count);
+              candidates = Arrays.copyOf(candidates, grown);
+            }
+            System.arraycopy(postings, start, candidates, numCandidates, count);
+            numCandidates += count;
+            break;
+          }
+          slot = (slot + 1) & tableMask;
+        }
+      }
+      Arrays.sort(candidates, 0, numCandidates);
+
+      for (int i = 0; i < numCandidates; i++) {
+        if (i > 0 && candidates[i] == candidates[i - 1]) {
+          continue;
+        }
+        String candidate = words[candidates[i]];
+        int d = distance.levenshtein(lower, candidate, maxDistance);
+        if (d >= 1 && d <= maxDistance) {
+          corrections.add(candidate);
+        }
+      }
+    }
+  }
+
+  /**
+   * Generates the hashes of every string obtained by deleting up to maxDistance characters from
+   * the prefix of a word, reusing its buffers from one word to the next.
+   */
+  private class Deletions {
+    private final char[] prefix = new char[prefixLength];
+    private final int[] deleted = new int[maxDistance];
+    private int[] hashes = new int[64];
+    private int count;
+
+    /**
+     * Fills hashes with the distinct deletion hashes of the argued lowercase word.
+     *
+     * @return The number of hashes generated
+     */
+    int generate(String word) {
+      int length = Math.min(word.length(), prefixLength);
+      word.getChars(0, length, prefix, 0);
+      count = 0;
+      collect(length, 0, 0);
+      Arrays.sort(hashes, 0, count);
+      int unique = 0;
+      for (int i = 0; i < count; i++) {
+        if (unique == 0 || hashes[i] != hashes[unique - 1]) {
+          hashes[unique++] = hashes[i];
+        }
+      }
+      count = unique;
+      return count;
+    }
+
+    /**
+     * Records the variant with the first numDeleted positions of deleted removed, then every
+     * variant that also removes a later position. Deleting positions in increasing order visits
+     * each set of positions once.
+     */
+    private void collect(int length, int from, int numDeleted) {
+      if (count == hashes.length) {
+        hashes = Arrays.copyOf(hashes, count * 2);
+      }
+      hashes[count++] = hash(length, numDeleted);
+      if (numDeleted == maxDistance) {
+        return;
+      }
+      for (int i = from; i < length; i++) {
+        deleted[numDeleted] = i;
+        collect(length, i + 1, numDeleted + 1);
+      }
+    }
+
+    /** Hashes the prefix with the first numDeleted positions of deleted skipped. */
+    private int hash(int length, int numDeleted) {
+      int h = 0;
+      int next = 0;
+      for (int i = 0; i < length; i++) {
+        if (next < numDeleted && deleted[next] == i) {
+          next++;
+        } else {
+          h = 31 * h + prefix[i];
+        }
+      }
+      h *= 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -11,8 +12,19 @@ import java.util.NoSuchElementException;
  * class will likely cause more headaches than help.
  */
 public class TokenScanner implements Iterator<String> {
+  private static final int BUFFER_SIZE = 8192;
+
   private java.io.Reader in;
-  private int next = -1;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position;
+  private int limit;
+  private long consumed;
+
+  private char[] token = new char[64];
+  private int tokenLength;
+  private long tokenOffset;
+  private boolean tokenIsWord;
+  private final CharSlice tokenView = new CharSlice();
 
   /**
    * Creates a TokenScanner for the argued Reader.
@@ -21,7 +33,8 @@ public class TokenScanner implements Iterator<String> {
    * determine hasNext() and next(). The TokenScanner should NOT read the entire stream and compute
    * all of the tokens in advance.
    *
-   * <p>
+   * <p>Characters are pulled from the Reader in bulk into a fixed-size window, so at most one
+   * window beyond the current token is read ahead.
    *
    * @param in The source Reader for character data
    * @throws IOException If there is an error in reading
@@ -32,7 +45,7 @@ public class TokenScanner implements Iterator<String> {
       throw new IllegalArgumentException();
     }
     this.in = in;
-    next = in.read();
+    fill();
   }
 
   /**
@@ -45,7 +58,21 @@ public class TokenScanner implements Iterator<String> {
    * @return True if the character is a word character
    */
   public static boolean isWordCharacter(int c) {
-    return (Character.isLetter((char) c) || ((char) c) == ('\''));
+    return isWordChar((char) c);
+  }
+
+  /**
+   * Same as isWordCharacter, with an ASCII fast path for the scanning loops.
+   *
+   * @param c The character to check
+   * @return True if the character is a word character
+   */
+  static boolean isWordChar(char c) {
+    if (c < 128) {
+      int letter = (c | 0x20) - 'a';
+      return (letter >= 0 && letter < 26) || c == '\'';
+    }
+    return Character.isLetter(c);
   }
 
   /**
@@ -58,11 +85,21 @@ public class TokenScanner implements Iterator<String> {
    * @return True if the String is a word
    */
   public static boolean isWord(String s) {
-    if (s == null || s == "") {
+    return isWord((CharSequence) s);
+  }
+
+  /**
+   * Determines whether the argued character sequence is a valid word. See isWord(String).
+   *
+   * @param s The characters to check
+   * @return True if the characters form a word
+   */
+  public static boolean isWord(CharSequence s) {
+    if (s == null || s.length() == 0) {
       return false;
     }
     for (int i = 0; i < s.length(); i++) {
-      if (!isWordCharacter(s.charAt(i))) {
+      if (!isWordChar(s.charAt(i))) {
         return false;
       }
     }
@@ -75,7 +112,7 @@ public class TokenScanner implements Iterator<String> {
    * @return True if there is another token available
    */
   public boolean hasNext() {
-    return (next != -1);
+    return position < limit;
   }
 
   /**
@@ -88,18 +125,116 @@ public class TokenScanner implements Iterator<String> {
     if (!hasNext()) {
       throw new NoSuchElementException();
     }
-    String word = "";
-    boolean currentIsWord = isWordCharacter(next);
     try {
-      while (currentIsWord == isWordCharacter(next) && next != -1) {
-        word += (char) next;
-        next = in.read();
-      }
+      advance();
     } catch (IOException e) {
       throw new NoSuchElementException();
     }
+    return new String(token, 0, tokenLength);
+  }
+
+  /**
+   * Moves to the next token without allocating a String for it. The token is then available
+   * through token(), tokenChars(), tokenLength(), tokenOffset() and isWordToken() until the next
+   * call to advance() or next().
+   *
+   * @return True if a token was read, false if the end of the stream was reached
+   * @throws IOException If there is an error in reading
+   */
+  public boolean advance() throws IOException {
+    if (!hasNext()) {
+      return false;
+    }
+    boolean word = isWordChar(buffer[position]);
+    tokenIsWord = word;
+    tokenOffset = consumed;
+    tokenLength = 0;
+    while (true) {
+      int start = position;
+      while (position < limit && isWordChar(buffer[position]) == word) {
+        position++;
+      }
+      append(start, position - start);
+      if (position < limit || !fill()) {
+        break;
+      }
+    }
+    consumed += tokenLength;
+    return true;
+  }
 
-    return word;
+  /**
+   * Returns a view of the current token. The view is overwritten by the next call to advance() or
+   * next(); call toString() on it to keep the text.
+   *
+   * @return The characters of the current token
+   */
+  public CharSequence token() {
+    return tokenView.set(token, 0, tokenLength);
+  }
+
+  /**
+   * Returns the internal buffer holding the current token, starting at index zero. Only the first
+   * tokenLength() characters are meaningful, and the buffer is reused for later tokens.
+   *
+   * @return The buffer holding the current token
+   */
+  public char[] tokenChars() {
+    return token;
+  }
+
+  /**
+   * Returns the number of characters in the current token.
+   *
+   * @return The length of the current token
+   */
+  public int tokenLength() {
+    return tokenLength;
+  }
+
+  /**
+   * Returns the position of the current token in the stream, counted in chars from the start.
+   *
+   * @return The offset of the first character of the current token
+   */
+  public long tokenOffset() {
+    return tokenOffset;
+  }
+
+  /**
+   * Determines whether the current token is a word token.
+   *
+   * @return True if the current token consists of word characters
+   */
+  public boolean isWordToken() {
+    return tokenIsWord;
+  }
+
+  /**
+   * Copies a run of the read window onto the end of the current token, growing the token buffer
+   * if needed.
+   */
+  private void append(int start, int length) {
+    if (tokenLength + length > token.length) {
+      token = Arrays.copyOf(token, Math.max(token.length * 2, tokenLength + length));
+    }
+    System.arraycopy(buffer, start, token, tokenLength, length);
+    tokenLength += length;
+  }
+
+  /**
+   * Refills the read window from the Reader.
+   *
+   * @return False if the end of the stream was reached
+   */
+  private boolean fill() throws IOException {
+    int n;
+    do {
+      n = in.read(buffer, 0, buffer.length);
+    } while (n == 0);
+    position = 0;
+    limit = Math.max(n, 0);
+    return n > 0;
   }
 
   /**
@@ -0,0 +1,30 @@
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A WordSet backed by a TreeSet of lowercase words.
+ *
+ * <p>Lookups are O(log n) and lowercase their argument first. This backend is slower than
+ * HashWordSet but iterates in alphabetical order.
+ */
+public class TreeWordSet implements WordSet {
+  private final Set<String> words = new TreeSet<>();
+
+  public boolean add(CharSequence word) {
+    return words.add(HashWordSet.lowerCase(word));
+  }
+
+  public boolean contains(CharSequence word) {
+    return words.contains(HashWordSet.lowerCase(word));
+  }
+
+  public int size() {
+    return words.size();
+  }
+
+  public Iterator<String> iterator() {
+    return Collections.unmodifiableSet(words).iterator();
+  }
+}
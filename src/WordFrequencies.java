@@ -0,0 +1,202 @@
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Counts of how often words occur, used to rank spelling suggestions so that common words come
+ * before rare ones.
+ *
+ * <p>Counts are kept case-insensitively in an open-addressing hash table laid out like that of
+ * HashWordSet, so looking up a candidate costs one hash and a probe or two. They can be read from
+ * a word list with a count column, learned from a corpus of text, or added one by one. Adding is
+ * not thread safe, but once filled a WordFrequencies can be read by any number of threads.
+ */
+public class WordFrequencies {
+  private String[] words = new String[1024];
+  private int[] hashes = new int[1024];
+  private long[] counts = new long[1024];
+  private int mask = 1023;
+  private int size;
+  private long total;
+
+  /**
+   * Reads counts from a word list in which each line holds a word optionally followed by its
+   * count, separated by spaces, a tab or a comma, such as "the 23135851162". Lines without a count
+   * and lines whose first column is not a single word are skipped, so a plain dictionary file
+   * reads as no counts at all. Repeated words have their counts added.
+   *
+   * @param r The word list
+   * @return The counts of the list
+   * @throws IOException If error while reading
+   * @throws IllegalArgumentException If the argued Reader is null
+   */
+  public static WordFrequencies read(Reader r) throws IOException {
+    if (r == null) {
+      throw new IllegalArgumentException();
+    }
+    WordFrequencies frequencies = new WordFrequencies();
+    BufferedReader lines = new BufferedReader(r);
+    String line;
+    while ((line = lines.readLine()) != null) {
+      int end = line.length();
+      while (end > 0 && isSeparator(line.charAt(end - 1))) {
+        end--;
+      }
+      int digits = end;
+      while (digits > 0 && line.charAt(digits - 1) >= '0' && line.charAt(digits - 1) <= '9') {
+        digits--;
+      }
+      int wordEnd = digits;
+      while (wordEnd > 0 && isSeparator(line.charAt(wordEnd - 1))) {
+        wordEnd--;
+      }
+      int wordStart = 0;
+      while (wordStart < wordEnd && isSeparator(line.charAt(wordStart))) {
+        wordStart++;
+      }
+      if (digits == end || wordEnd == digits || end - digits > 18) {
+        continue;
+      }
+      String word = line.substring(wordStart, wordEnd);
+      if (TokenScanner.isWord(word)) {
+        frequencies.add(word, Long.parseLong(line.substring(digits, end)));
+      }
+    }
+    return frequencies;
+  }
+
+  /**
+   * Reads counts from a word list file; see read.
+   *
+   * @param filename Location of the word list
+   * @return The counts of the list
+   * @throws FileNotFoundException If the file does not exist
+   * @throws IOException If error while reading
+   */
+  public static WordFrequencies make(String filename) throws IOException {
+    try (Reader r = new FileReader(filename)) {
+      return read(r);
+    }
+  }
+
+  /**
+   * Learns counts by counting the words of a corpus of text. Words the argued Dictionary does not
+   * know are not counted, since they can never be suggested.
+   *
+   * @param dict The words to count, or null to count every word
+   * @param corpus The text to count words in
+   * @return The counts of the corpus
+   * @throws IOException If error while reading
+   * @throws IllegalArgumentException If the corpus is null
+   */
+  public static WordFrequencies learn(Dictionary dict, TokenScanner corpus) throws IOException {
+    if (corpus == null) {
+      throw new IllegalArgumentException();
+    }
+    WordFrequencies frequencies = new WordFrequencies();
+    while (corpus.advance()) {
+      if (corpus.isWordToken() && (dict == null || dict.isWord(corpus.token()))) {
+        frequencies.add(corpus.token(), 1);
+      }
+    }
+    return frequencies;
+  }
+
+  private static boolean isSeparator(char c) {
+    return c == ' ' || c == '\t' || c == ',';
+  }
+
+  /**
+   * Adds to the count of a word.
+   *
+   * @param word The word, in any case
+   * @param count The number of occurrences to add
+   * @return The new count of the word
+   * @throws IllegalArgumentException If the word is null or the count is negative
+   */
+  public long add(CharSequence word, long count) {
+    if (word == null || count < 0) {
+      throw new IllegalArgumentException();
+    }
+    total += count;
+    int hash = HashWordSet.hash(word);
+    int i = hash & mask;
+    while (words[i] != null) {
+      if (hashes[i] == hash && HashWordSet.equalsIgnoreCase(words[i], word)) {
+        return counts[i] += count;
+      }
+      i = (i + 1) & mask;
+    }
+    words[i] = HashWordSet.lowerCase(word);
+    hashes[i] = hash;
+    counts[i] = count;
+    size++;
+    if (size * 3 > words.length * 2) {
+      resize();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the count of a word, ignoring case.
+   *
+   * @param word The word
+   * @return The count of the word, or 0 if it was never counted or is null
+   */
+  public long getCount(CharSequence word) {
+    if (word == null) {
+      return 0;
+    }
+    int hash = HashWordSet.hash(word);
+    int i = hash & mask;
+    String candidate;
+    while ((candidate = words[i]) != null) {
+      if (hashes[i] == hash && HashWordSet.equalsIgnoreCase(candidate, word)) {
+        return counts[i];
+      }
+      i = (i + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the number of distinct words counted.
+   *
+   * @return The number of words
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the sum of all counts.
+   *
+   * @return The total count
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  private void resize() {
+    String[] oldWords = words;
+    int[] oldHashes = hashes;
+    long[] oldCounts = counts;
+    words = new String[oldWords.length * 2];
+    hashes = new int[words.length];
+    counts = new long[words.length];
+    mask = words.length - 1;
+    for (int j = 0; j < oldWords.length; j++) {
+      if (oldWords[j] != null) {
+        int i = oldHashes[j] & mask;
+        while (words[i] != null) {
+          i = (i + 1) & mask;
+        }
+        words[i] = oldWords[j];
+        hashes[i] = oldHashes[j];
+        counts[i] = oldCounts[j];
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps the index a corrector builds over the words of a Dictionary, such as a Dawg or a BK-tree,
+ * in step with the Dictionary's words when they are an OverlayWordSet.
+ *
+ * <p>For a Dictionary whose words never change, the index is built once. For an overlay, one index
+ * covers the base words and a second, small one covers the pending additions. Both are built by
+ * the writers rather than by queries: each addWord or removeWord that changes the additions
+ * indexes them before publishing them, in the same State, and the compaction task builds the
+ * index of a new base before publishing it. Queries keep using the old indexes until the new ones
+ * are published, so they neither build an index nor lock, unless building one on the writer's
+ * side failed. A corrector queries every index returned by indexes() and, if isOverlay() is true,
+ * drops results that are no longer words, which accounts for removed words.
+ *
+ * @param <I> The type of index
+ */
+final class WordIndex<I> implements OverlayWordSet.Indexer {
+  private final Dictionary dict;
+  private final Function<WordSet, I> builder;
+  private final Object key;
+  private volatile Built<I> base;
+  private volatile Built<I> compacted;
+
+  /** An index and the words it was built from. */
+  private static final class Built<I> {
+    final WordSet words;
+    final I index;
+
+    Built(WordSet words, I index) {
+      this.words = words;
+      this.index = index;
+    }
+  }
+
+  /**
+   * Builds the index of the argued Dictionary's current words.
+   *
+   * @param dict The Dictionary whose words are indexed
+   * @param builder Builds an index of a set of words
+   */
+  WordIndex(Dictionary dict, Function<WordSet, I> builder) {
+    this.dict = dict;
+    this.builder = builder;
+    if (dict.getWordSet() instanceof OverlayWordSet) {
+      key = ((OverlayWordSet) dict.getWordSet()).addIndexer(this);
+    } else {
+      key = null;
+    }
+    indexes();
+  }
+
+  /** Builds the index of a compacted base on the compaction task. */
+  public void compacting(WordSet words) {
+    synchronized (this) {
+      // Compactions run one at a time, so the base of the previous one has been published.
+      if (compacted != null) {
+        base = compacted;
+        compacted = null;
+      }
+    }
+    compacted = new Built<>(words, builder.apply(words));
+  }
+
+  /** Builds the index of the additions on the writer's thread. */
+  public Object indexAdditions(WordSet additions) {
+    return builder.apply(additions);
+  }
+
+  /**
+   * Returns the indexes that together cover the current words.
+   *
+   * @return The base index, followed by the additions index if there are pending additions
+   */
+  @SuppressWarnings("unchecked")
+  List<I> indexes() {
+    WordSet words = dict.getWordSet();
+    if (!(words instanceof OverlayWordSet)) {
+      return Collections.singletonList(base(words));
+    }
+    OverlayWordSet.State state = ((OverlayWordSet) words).state();
+    I baseIndex = base(state.base);
+    if (state.additions.size() == 0) {
+      return Collections.singletonList(baseIndex);
+    }
+    I additionsIndex = (I) state.additionsIndex(key);
+    if (additionsIndex == null) {
+      additionsIndex = builder.apply(state.additions);
+    }
+    return Arrays.asList(baseIndex, additionsIndex);
+  }
+
+  /**
+   * Determines whether the words can change, in which case results from the indexes must be
+   * checked against the Dictionary.
+   *
+   * @return True if the Dictionary's words are an overlay
+   */
+  boolean isOverlay() {
+    return dict.getWordSet() instanceof OverlayWordSet;
+  }
+
+  /**
+   * Returns the index of the argued base words, building it unless the current one, or the one
+   * the compaction built, is of them.
+   */
+  private I base(WordSet words) {
+    Built<I> built = base;
+    if (built != null && built.words == words) {
+      return built.index;
+    }
+    // Left in compacted, which the next compaction moves to base, so a racing query that stores
+    // an older base here cannot hide it.
+    Built<I> ready = compacted;
+    if (ready != null && ready.words == words) {
+      base = ready;
+      return ready.index;
+    }
+    synchronized (this) {
+      built = base;
+      if (built == null || built.words != words) {
+        built = new Built<>(words, builder.apply(words));
+        base = built;
+      }
+      return built.index;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/**
+ * The storage backend of a Dictionary.
+ *
+ * <p>A WordSet is case insensitive: words are stored in lowercase, and contains must report a
+ * stored word regardless of the case of its argument. Iteration returns the stored (lowercase)
+ * words in no particular order.
+ *
+ * <p>A Dictionary only calls add while it is being constructed, so implementations do not need to
+ * support concurrent modification. Once built, contains may be called from many threads at once.
+ *
+ * @see HashWordSet
+ * @see TreeWordSet
+ */
+public interface WordSet extends Iterable<String> {
+
+  /**
+   * Stores the lowercase form of the argued word.
+   *
+   * @param word The word to store. It is copied, so the caller may reuse the sequence afterwards.
+   * @return True if the word was not already present
+   */
+  boolean add(CharSequence word);
+
+  /**
+   * Tests whether the argued word is stored, ignoring case.
+   *
+   * @param word The word to look up
+   * @return True if the word is present
+   */
+  boolean contains(CharSequence word);
+
+  /**
+   * Tests whether the word in the argued region of a char array is stored, ignoring case. This
+   * lets correctors probe candidates they build in a scratch buffer without making a String of
+   * each. Implementations should override it to avoid wrapping the region in a view.
+   *
+   * @param chars The array holding the word
+   * @param offset Index of the first character of the word
+   * @param length Number of characters in the word
+   * @return True if the word is present
+   */
+  default boolean contains(char[] chars, int offset, int length) {
+    return contains(new CharSlice(chars, offset, length));
+  }
+
+  /**
+   * Returns the number of distinct words stored.
+   *
+   * @return The number of words
+   */
+  int size();
+}
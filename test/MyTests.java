@@ -4,7 +4,25 @@ import org.junit.*;
 import java.io.FileNotFoundException;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.lang.*;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 
 
@@ -134,9 +152,69 @@ public class MyTests {
         assertTrue(TokenScanner.isWordCharacter('A'));
         assertFalse(TokenScanner.isWordCharacter('1'));
     }
+
+    @Test
+    public void testTokenScannerAdvanceOffsets() throws IOException {
+        TokenScanner d = new TokenScanner(new StringReader("An Apple!"));
+        assertTrue(d.advance());
+        assertTrue(d.isWordToken());
+        assertEquals("An", d.token().toString());
+        assertEquals(0, d.tokenOffset());
+        assertTrue(d.advance());
+        assertFalse(d.isWordToken());
+        assertEquals(2, d.tokenOffset());
+        assertTrue(d.advance());
+        assertEquals("Apple", d.token().toString());
+        assertEquals(3, d.tokenOffset());
+        assertTrue(d.advance());
+        assertEquals("!", d.token().toString());
+        assertFalse(d.advance());
+        assertFalse(d.hasNext());
+    }
+
+    @Test
+    public void testTokenScannerTokenLongerThanBuffer() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append('a');
+        }
+        String longWord = sb.toString();
+        TokenScanner d = new TokenScanner(new StringReader(longWord + " " + longWord));
+        assertEquals(longWord, d.next());
+        assertEquals(" ", d.next());
+        assertEquals(longWord, d.next());
+        assertFalse(d.hasNext());
+    }
     
     
     
+    @Test
+    public void testMappedTokenScannerSpans() throws IOException {
+        File f = File.createTempFile("mapped", ".txt");
+        f.deleteOnExit();
+        OutputStream os = new FileOutputStream(f);
+        os.write("caf\u00e9, ok".getBytes("UTF-8"));
+        os.close();
+        java.nio.channels.FileChannel ch = new RandomAccessFile(f, "r").getChannel();
+        try {
+            MappedTokenScanner d = new MappedTokenScanner(ch);
+            assertTrue(d.advance());
+            assertTrue(d.isWordToken());
+            assertEquals("caf\u00e9", d.token().toString());
+            assertEquals(0, d.tokenOffset());
+            assertEquals(5, d.tokenByteLength());
+            assertTrue(d.advance());
+            assertFalse(d.isWordToken());
+            assertEquals(5, d.tokenOffset());
+            assertEquals(2, d.tokenByteLength());
+            assertTrue(d.advance());
+            assertEquals("ok", d.token().toString());
+            assertFalse(d.advance());
+        } finally {
+            ch.close();
+        }
+    }
+
     @Test(timeout=500)
     public void testDictionaryNumberWords() throws IOException {
         Dictionary d = Dictionary.make("files/smallDictionary.txt");
@@ -211,6 +289,215 @@ public class MyTests {
         }
     }
     
+    @Test
+    public void testDictionaryBackendsAgree() throws IOException {
+        String words = "Dog dog CAT it's caf\u00e9 \n 123 bird";
+        Dictionary hashed = new Dictionary(new TokenScanner(new StringReader(words)));
+        Dictionary tree = new Dictionary(new TokenScanner(new StringReader(words)),
+                                         new TreeWordSet());
+        assertEquals(5, hashed.getNumWords());
+        assertEquals(5, tree.getNumWords());
+        for (String w : new String[]{"DOG", "cat", "IT'S", "Caf\u00c9", "bird", "123", "do", ""}) {
+            assertEquals(w, tree.isWord(w), hashed.isWord(w));
+        }
+    }
+
+    @Test
+    public void testHashWordSetGrows() {
+        HashWordSet set = new HashWordSet(0);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(set.add("w" + Integer.toString(i, 26).replace('0', 'z')));
+        }
+        assertEquals(5000, set.size());
+        assertFalse(set.add("W1"));
+        assertTrue(set.contains("W" + Integer.toString(4999, 26).replace('0', 'z')));
+    }
+
+    @Test
+    public void testDawgDictionary() throws IOException {
+        Dawg dawg = Dawg.build(new TokenScanner(new StringReader("Dog dogs, CAT cats 12 dog")));
+        Dictionary d = Dictionary.of(dawg);
+        assertEquals(4, d.getNumWords());
+        assertTrue(d.isWord("DOGS"));
+        assertTrue(d.isWord("cat"));
+        assertFalse(d.isWord("do"));
+        assertFalse(d.isWord(""));
+        assertFalse(d.isWord(null));
+
+        int state = dawg.transition(dawg.root(), 'c');
+        state = dawg.transition(state, 'A');
+        assertTrue("ca is a prefix", state >= 0);
+        assertFalse(dawg.isFinal(state));
+        assertEquals(-1, dawg.transition(state, 'x'));
+
+        List<String> words = new ArrayList<>();
+        for (String w : dawg) {
+            words.add(w);
+        }
+        assertEquals(Arrays.asList("cat", "cats", "dog", "dogs"), words);
+    }
+
+    @Test
+    public void testDictionarySnapshotRoundTrip() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("Hello world, it's ME")));
+        File snapshot = File.createTempFile("dictionary", ".snap");
+        snapshot.deleteOnExit();
+        d.compile(snapshot.getPath());
+
+        Dictionary loaded = Dictionary.load(snapshot.getPath());
+        assertEquals(4, loaded.getNumWords());
+        assertTrue(loaded.isWord("HELLO"));
+        assertTrue(loaded.isWord("It's"));
+        assertFalse(loaded.isWord("hell"));
+        assertFalse(loaded.isWord(null));
+    }
+
+    @Test
+    public void testDictionarySnapshotReplacedWhileLoaded() throws IOException {
+        File snapshot = File.createTempFile("dictionary", ".snap");
+        snapshot.deleteOnExit();
+        StringBuilder many = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            many.append("word");
+            for (char c : Integer.toString(i, 26).toCharArray()) {
+                many.append((char) ('a' + Character.digit(c, 26)));
+            }
+            many.append(' ');
+        }
+        Dictionary big = new Dictionary(new TokenScanner(new StringReader(many.toString())));
+        big.compile(snapshot.getPath());
+        Dictionary loaded = Dictionary.load(snapshot.getPath());
+
+        new Dictionary(new TokenScanner(new StringReader("cat"))).compile(snapshot.getPath());
+        assertEquals(5000, loaded.getNumWords());
+        for (String word : many.toString().split(" ")) {
+            assertTrue(loaded.isWord(word));
+        }
+        assertEquals(1, Dictionary.load(snapshot.getPath()).getNumWords());
+        assertEquals(1, snapshot.getParentFile().list(
+            (dir, name) -> name.startsWith(snapshot.getName())).length);
+    }
+
+    @Test
+    public void testDictionaryBloomFilterSnapshot() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("Hello world, it's ME")))
+            .withBloomFilter(0.01);
+        assertTrue(d.mightBeWord("WORLD"));
+        assertTrue(d.isWord("World"));
+        assertFalse(d.isWord("wrold"));
+        File snapshot = File.createTempFile("dictionary", ".snap");
+        snapshot.deleteOnExit();
+        d.compile(snapshot.getPath());
+
+        Dictionary loaded = Dictionary.load(snapshot.getPath());
+        assertEquals(4, loaded.getNumWords());
+        assertTrue(loaded.mightBeWord("hello"));
+        assertTrue(loaded.isWord("It's"));
+        assertFalse(loaded.isWord("hell"));
+        assertEquals(d.mightBeWord("zebra"), loaded.mightBeWord("zebra"));
+    }
+
+    @Test
+    public void testDictionaryFilterlessSnapshot() throws IOException {
+        // Vary the length of the character area so that it ends at every offset modulo 8.
+        StringBuilder words = new StringBuilder();
+        for (int n = 1; n <= 16; n++) {
+            words.append("w").append("abcdefghijklmnop", 0, n).append(' ');
+            Dictionary d = new Dictionary(new TokenScanner(new StringReader(words.toString())));
+            File snapshot = File.createTempFile("dictionary", ".snap");
+            snapshot.deleteOnExit();
+            d.compile(snapshot.getPath());
+
+            Dictionary loaded = Dictionary.load(snapshot.getPath());
+            assertEquals(n, loaded.getNumWords());
+            assertTrue(loaded.isWord("wa"));
+            assertTrue(loaded.isWord("w" + "abcdefghijklmnop".substring(0, n)));
+            assertFalse(loaded.isWord("w"));
+        }
+    }
+
+    @Test
+    public void testDictionaryIsWordCharArray() throws IOException {
+        String words = "Hello world, it's ME";
+        Dictionary[] dictionaries = {
+            new Dictionary(new TokenScanner(new StringReader(words))),
+            new Dictionary(new TokenScanner(new StringReader(words)), new TreeWordSet()),
+            Dictionary.of(Dawg.build(new TokenScanner(new StringReader(words)))),
+            new Dictionary(new TokenScanner(new StringReader(words))).withLookupCache(8)
+                .withBloomFilter(0.01),
+        };
+        char[] buffer = "xxWORLDxIT'Sxhellx".toCharArray();
+        for (Dictionary d : dictionaries) {
+            assertTrue(d.isWord(buffer, 2, 5));
+            assertTrue(d.isWord(buffer, 2, 5));
+            assertTrue(d.isWord(buffer, 8, 4));
+            assertFalse(d.isWord(buffer, 13, 4));
+            assertFalse(d.isWord(buffer, 2, 0));
+            assertFalse(d.isWord(null, 0, 0));
+            try {
+                d.isWord(buffer, 15, 5);
+                fail("Expected an IndexOutOfBoundsException");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testDictionaryLoadNotSnapshot() throws IOException {
+        File text = File.createTempFile("dictionary", ".txt");
+        text.deleteOnExit();
+        Writer w = new FileWriter(text);
+        w.write("just some words");
+        w.close();
+        try {
+            Dictionary.load(text.getPath());
+            fail("Expected an IOException for a file that is not a snapshot");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDictionaryLoadCorruptSnapshot() throws IOException {
+        File list = File.createTempFile("dictionary", ".txt");
+        list.deleteOnExit();
+        Writer w = new FileWriter(list);
+        w.write("Hello world, it's ME");
+        w.close();
+        File snapshot = File.createTempFile("dictionary", ".snap");
+        snapshot.deleteOnExit();
+        Dictionary.make(list.getPath()).compile(snapshot.getPath());
+        byte[] good = Files.readAllBytes(snapshot.toPath());
+
+        byte[] flipped = good.clone();
+        flipped[flipped.length - 3] ^= 1;
+        byte[] truncated = Arrays.copyOf(good, good.length - 2);
+        byte[] future = good.clone();
+        future[7] = 99;
+        byte[] words = good.clone();
+        words[11] = 20;
+        byte[] halved = good.clone();
+        halved[15] >>= 1;
+        byte[] older = flipped.clone();
+        older[7] = 2;
+        for (byte[] bad : new byte[][] {flipped, truncated, future, words, halved, older}) {
+            Files.write(snapshot.toPath(), bad);
+            try {
+                Dictionary.load(snapshot.getPath());
+                fail("Expected an IOException for a damaged snapshot");
+            } catch (IOException e) {
+                // expected
+            }
+            Dictionary d = Dictionary.load(snapshot.getPath(), list.getPath());
+            assertEquals(4, d.getNumWords());
+            assertTrue(d.isWord("it's"));
+            assertFalse(d.isWord("hell"));
+        }
+        assertTrue(snapshot.delete());
+        assertTrue(Dictionary.load(snapshot.getPath(), list.getPath()).isWord("World"));
+    }
+
     @Test
     public void testFileCorrectorExtraWhiteSpace() throws IOException, FileCorrector.FormatException{
         FileCorrector fc = FileCorrector.make("files/testFileCorrector.txt");
@@ -281,6 +568,66 @@ public class MyTests {
         assertEquals(testCorrections, fc.getCorrections("Tgier"));
     }
     
+    @Test
+    public void testFileCorrectorSharedLowercaseResults() throws IOException, FileCorrector.FormatException {
+        FileCorrector fc = new FileCorrector(new StringReader("teh,the\nTHE,the\nsasd,sad\nsasd,said\n"));
+        assertSame(fc.getCorrections("teh"), fc.getCorrections("teh"));
+        assertEquals(Arrays.asList("sad", "said"), new ArrayList<>(fc.getCorrections("sasd")));
+        assertEquals(makeSet(new String[] {"Sad", "Said"}), fc.getCorrections("SaSD"));
+        assertEquals(makeSet(new String[] {"the"}), fc.getCorrections("tHE"));
+        try {
+            fc.getCorrections("teh").add("tech");
+            fail("Expected the shared corrections to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFileCorrectorLineEndingsAndLineNumbers() throws IOException {
+        try {
+            FileCorrector fc = new FileCorrector(new StringReader("  Teh , the \r\nsasd,sad\rsasd,said\n\n"));
+            assertEquals(makeSet(new String[] {"the"}), fc.getCorrections("teh"));
+            assertEquals(makeSet(new String[] {"Sad", "Said"}), fc.getCorrections("Sasd"));
+        } catch (FileCorrector.FormatException e) {
+            fail("Unexpected " + e);
+        }
+        try {
+            new FileCorrector(new StringReader("a,b\r\n\r\n  x , y \rwrong correct\n"));
+            fail("Expected a FormatException");
+        } catch (FileCorrector.FormatException e) {
+            assertTrue(e.getMessage().startsWith("Line 4:"));
+        }
+    }
+
+    @Test
+    public void testFileCorrectorParallelLoad() throws IOException, FileCorrector.FormatException {
+        File file = File.createTempFile("corrections", ".txt");
+        file.deleteOnExit();
+        Writer w = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        long lines = 0;
+        while (file.length() <= FileCorrector.PARALLEL_CHUNK_SIZE * 2) {
+            for (int i = 0; i < 10000; i++, lines++) {
+                w.write("w" + Long.toString(lines, 26).replaceAll("[0-9]", "x") + "\u00e9, fix\r\n");
+            }
+            w.flush();
+        }
+        w.write("teh,the\n");
+        w.close();
+        FileCorrector fc = FileCorrector.load(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(makeSet(new String[] {"the"}), fc.getCorrections("teh"));
+
+        Writer append = new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8");
+        append.write("one,two,three\n");
+        append.close();
+        try {
+            FileCorrector.load(file.toPath(), StandardCharsets.UTF_8);
+            fail("Expected a FormatException");
+        } catch (FileCorrector.FormatException e) {
+            assertEquals("Line " + (lines + 2) + ": too many commas", e.getMessage());
+        }
+    }
+
     @Test
     public void testFileCorrectorFormatException() throws IOException, FileCorrector.FormatException {
         try {      
@@ -491,6 +838,825 @@ public class MyTests {
     
     
     
+    @Test
+    public void testLevenshteinNullDictionary() {
+        try {
+            new Levenshtein(null);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLevenshteinGenerators() throws IOException {
+        Levenshtein lev = new Levenshtein(new Dictionary(new TokenScanner(new StringReader(""))));
+        assertEquals(makeSet(new String[]{"es", "ys", "ye"}), lev.getDeletions("yes"));
+        assertEquals(25 * 3, lev.getSubstitutions("yes").size());
+        assertTrue(lev.getSubstitutions("yes").contains("yez"));
+        assertEquals(26 * 4 - 3, lev.getInsertions("yes").size());
+        assertTrue(lev.getInsertions("yes").contains("yesz"));
+    }
+
+    @Test
+    public void testLevenshteinCorrections() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader(
+            "cat cart at bat cast act dog")));
+        Levenshtein lev = new Levenshtein(d);
+        assertEquals(makeSet(new String[]{"cart", "at", "bat", "cast"}), lev.getCorrections("cat"));
+        assertEquals(makeSet(new String[]{"Cat", "Cart", "Cast"}), lev.getCorrections("Caxt"));
+        assertEquals(makeSet(new String[]{}), lev.getCorrections("zebra"));
+    }
+
+    @Test
+    public void testLevenshteinNonWord() throws IOException {
+        Levenshtein lev = new Levenshtein(new Dictionary(new TokenScanner(new StringReader("a"))));
+        try {
+            lev.getCorrections("12");
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEditDistanceBounded() {
+        EditDistance d = new EditDistance();
+        assertEquals(3, d.levenshtein("kitten", "sitting", 5));
+        assertEquals(3, d.levenshtein("kitten", "sitting", 2));
+        assertEquals(0, d.levenshtein("same", "same", 1));
+        assertEquals(2, d.levenshtein("a", "abcdef", 1));
+    }
+
+    @Test
+    public void testSymSpellCorrector() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader(
+            "receive recipe deceive relieve the they then")));
+        SymSpellCorrector sym = new SymSpellCorrector(d, 2, 5);
+        assertEquals(makeSet(new String[]{"receive", "recipe", "relieve"}),
+                     sym.getCorrections("recieve"));
+        assertEquals(makeSet(new String[]{"The", "They", "Then"}), sym.getCorrections("Teh"));
+        assertEquals(makeSet(new String[]{}), sym.getCorrections("xylophone"));
+    }
+
+    @Test
+    public void testSymSpellCorrectorInvalidArguments() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("a")));
+        try {
+            new SymSpellCorrector(d, 2, 2);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SymSpellCorrector(null);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEditDistanceDamerau() {
+        EditDistance d = new EditDistance();
+        assertEquals(1, d.damerau("thsi", "this", 3));
+        assertEquals(2, d.levenshtein("thsi", "this", 3));
+        assertEquals(2, d.damerau("ca", "abc", 3));
+        assertEquals(2, d.damerau("kitten", "sitting", 1));
+    }
+
+    @Test
+    public void testBKTreeCorrector() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader(
+            "this these thus his kiss technical technically")));
+        BKTreeCorrector one = new BKTreeCorrector(d, 1);
+        assertEquals(makeSet(new String[]{"This"}), one.getCorrections("Thiss"));
+
+        BKTreeCorrector swaps = new BKTreeCorrector(d, 1, true);
+        assertEquals(makeSet(new String[]{"this"}), swaps.getCorrections("thsi"));
+        assertEquals(makeSet(new String[]{}), one.getCorrections("thsi"));
+
+        BKTreeCorrector three = new BKTreeCorrector(d, 3, true);
+        assertEquals(makeSet(new String[]{"technical", "technically"}),
+                     three.getCorrections("tecnhicaly"));
+    }
+
+    @Test
+    public void testCheckDocumentWithPolicy() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat")));
+        SpellChecker sc = new SpellChecker(new SwapCorrector(d), d);
+        StringWriter out = new StringWriter();
+        List<Misspelling> found = sc.checkDocument(new StringReader("Teh cat, sta!"), out,
+                                                   CorrectionPolicy.FIRST_SUGGESTION);
+        assertEquals("The cat, sat!", out.toString());
+        assertEquals(2, found.size());
+        assertEquals(0, found.get(0).getOffset());
+        assertEquals("Teh", found.get(0).getWord());
+        assertEquals(Arrays.asList("The"), found.get(0).getSuggestions());
+        assertEquals(9, found.get(1).getOffset());
+        assertTrue(found.get(1).isCorrected());
+    }
+
+    @Test
+    public void testCheckDocumentInteractive() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat")));
+        SpellChecker sc = new SpellChecker(new SwapCorrector(d), d);
+        StringWriter out = new StringWriter();
+        sc.checkDocument(new StringReader("Teh cat, sta!"),
+            new ByteArrayInputStream("2 1 sit".getBytes(StandardCharsets.UTF_8)), out);
+        assertEquals("The cat, sit!", out.toString());
+
+        Path dir = Files.createTempDirectory("interactive");
+        Path in = Files.write(dir.resolve("in.txt"),
+            "Teh caf\u00e9, sta!".getBytes(StandardCharsets.UTF_8));
+        Path corrected = dir.resolve("out.txt");
+        sc.checkDocument(in,
+            new ByteArrayInputStream("0 0 2".getBytes(StandardCharsets.UTF_8)), corrected);
+        assertEquals("Teh caf\u00e9, sat!",
+            new String(Files.readAllBytes(corrected), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBatchSpellChecker() throws Exception {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat")));
+        File dir = Files.createTempDirectory("batch").toFile();
+        List<Path> docs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            File f = new File(dir, "doc" + i + ".txt");
+            Writer w = new FileWriter(f);
+            w.write("teh cat sta");
+            w.close();
+            docs.add(f.toPath());
+        }
+        docs.add(new File(dir, "missing.txt").toPath());
+
+        BatchSpellChecker batch = new BatchSpellChecker(new SwapCorrector(d), d);
+        BatchSpellChecker.BatchReport report =
+            batch.checkAll(docs, null, CorrectionPolicy.LEAVE, null);
+        assertEquals(6, report.getResults().size());
+        assertEquals(1, report.getFailures());
+        assertEquals(2, report.getResults().get(3).getMisspellings().size());
+        assertNotNull(report.getResults().get(5).getError());
+
+        SpellCheckMetrics metrics = new SpellCheckMetrics();
+        BatchSpellChecker counting = new BatchSpellChecker(
+            new SpellChecker(new SwapCorrector(d), d, metrics), ForkJoinPool.commonPool(),
+            StandardCharsets.UTF_8, false);
+        List<Integer> seen = new ArrayList<>();
+        report = counting.checkAll(docs.subList(0, 5), null, CorrectionPolicy.LEAVE,
+            (result, completed, total) -> seen.add(result.getMisspellings().size()));
+        assertEquals(Arrays.asList(2, 2, 2, 2, 2), seen);
+        assertTrue(report.getResults().get(3).getMisspellings().isEmpty());
+        assertEquals(2, report.getResults().get(3).getNumMisspellings());
+        assertEquals(5, metrics.getDocuments());
+        assertEquals(10, metrics.getMisspellings());
+    }
+
+    @Test
+    public void testBatchSpellCheckerSameFileNames() throws Exception {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat")));
+        File dir = Files.createTempDirectory("batch").toFile();
+        File out = Files.createTempDirectory("batchOut").toFile();
+        List<Path> docs = new ArrayList<>();
+        String[] texts = {"teh", "sta"};
+        for (int i = 0; i < texts.length; i++) {
+            File sub = new File(dir, "sub" + i);
+            assertTrue(sub.mkdir());
+            File f = new File(sub, "doc.txt");
+            Writer w = new FileWriter(f);
+            w.write(texts[i]);
+            w.close();
+            docs.add(f.toPath());
+        }
+
+        BatchSpellChecker batch = new BatchSpellChecker(new SwapCorrector(d), d);
+        BatchSpellChecker.BatchReport report =
+            batch.checkAll(docs, out.toPath(), CorrectionPolicy.FIRST_SUGGESTION, null);
+        assertEquals(0, report.getFailures());
+        Path first = report.getResults().get(0).getOutput();
+        Path second = report.getResults().get(1).getOutput();
+        assertEquals(out.toPath().resolve("sub0").resolve("doc.txt"), first);
+        assertEquals(out.toPath().resolve("sub1").resolve("doc.txt"), second);
+        assertEquals("the", new String(Files.readAllBytes(first), "UTF-8"));
+        assertEquals("sat", new String(Files.readAllBytes(second), "UTF-8"));
+
+        docs.add(docs.get(0));
+        try {
+            batch.checkAll(docs, out.toPath(), CorrectionPolicy.FIRST_SUGGESTION, null);
+            fail("Expected an IllegalArgumentException for a document listed twice");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        List<Path> one = Collections.singletonList(docs.get(0));
+        try {
+            batch.checkAll(one, docs.get(0).getParent(), CorrectionPolicy.FIRST_SUGGESTION, null);
+            fail("Expected an IllegalArgumentException for an output over its document");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals("teh", new String(Files.readAllBytes(docs.get(0)), "UTF-8"));
+    }
+
+    @Test
+    public void testParallelSpellCheckerMatchesSequential() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat on a mat")));
+        SpellChecker sc = new SpellChecker(new SwapCorrector(d), d);
+        StringBuilder doc = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            doc.append(i % 3 == 0 ? "Teh cat sta " : "on a mta, caf\u00e9\n");
+        }
+        File in = File.createTempFile("parallel", ".txt");
+        File sequential = File.createTempFile("sequential", ".out");
+        File parallel = File.createTempFile("parallel", ".out");
+        in.deleteOnExit();
+        sequential.deleteOnExit();
+        parallel.deleteOnExit();
+        Files.write(in.toPath(), doc.toString().getBytes("UTF-8"));
+
+        sc.checkDocument(in.toPath(), sequential.toPath(), CorrectionPolicy.FIRST_SUGGESTION);
+        new ParallelSpellChecker(sc, ForkJoinPool.commonPool(), 100)
+            .checkDocument(in.toPath(), parallel.toPath(), CorrectionPolicy.FIRST_SUGGESTION);
+
+        byte[] expected = Files.readAllBytes(sequential.toPath());
+        assertTrue(Arrays.equals(expected, Files.readAllBytes(parallel.toPath())));
+        assertTrue(new String(expected, "UTF-8").startsWith("The cat sat on a mat, caf"));
+    }
+
+    @Test
+    public void testCachingCorrector() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat hate heat")));
+        CachingCorrector c = new CachingCorrector(new SwapCorrector(d), 2);
+        assertEquals(makeSet(new String[] {"hate", "heat"}), c.getCorrections("haet"));
+        assertEquals(makeSet(new String[] {"Hate", "Heat"}), c.getCorrections("Haet"));
+        assertEquals(makeSet(new String[] {"The"}), c.getCorrections("TEH"));
+        assertEquals(2, c.getMissCount());
+        assertEquals(1, c.getHitCount());
+        c.getCorrections("tac");
+        c.getCorrections("act");
+        assertTrue(c.getEvictionCount() > 0);
+        assertTrue(c.size() <= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCachingCorrectorNonWord() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the")));
+        new CachingCorrector(new SwapCorrector(d)).getCorrections("12");
+    }
+
+    @Test
+    public void testDictionaryLookupCache() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat")))
+            .withLookupCache(64);
+        assertEquals(0, d.getLookupCacheHitRate(), 0);
+        assertTrue(d.isWord("the"));
+        assertTrue(d.isWord("THE"));
+        assertFalse(d.isWord("teh"));
+        assertFalse(d.isWord("Teh"));
+        assertTrue(d.isWord("Cat"));
+        assertEquals(0.4, d.getLookupCacheHitRate(), 1e-9);
+        assertEquals(2, d.getNumWords());
+    }
+
+    @Test
+    public void testDictionaryOverlay() throws IOException {
+        Dictionary base = new Dictionary(new TokenScanner(new StringReader("the cat hello")));
+        Dictionary d = base.withOverlay();
+        Corrector lev = new Levenshtein(d);
+        Corrector bk = new BKTreeCorrector(d, 1);
+        assertEquals(Collections.singleton("cat"), lev.getCorrections("cot"));
+
+        assertTrue(d.addWord("Cot"));
+        assertFalse(d.addWord("cot"));
+        assertTrue(d.isWord("COT"));
+        assertTrue(d.removeWord("cat"));
+        assertFalse(d.removeWord("cat"));
+        assertFalse(d.isWord("cat"));
+        assertTrue(base.isWord("cat"));
+        assertFalse(base.isWord("cot"));
+        assertEquals(3, d.getNumWords());
+        assertEquals(Collections.singleton("cot"), lev.getCorrections("cat"));
+        assertEquals(Collections.singleton("cot"), bk.getCorrections("cut"));
+
+        OverlayWordSet words = (OverlayWordSet) d.getWordSet();
+        assertEquals(2, words.getPendingChanges());
+        words.compact();
+        assertEquals(0, words.getPendingChanges());
+        assertTrue(d.isWord("cot"));
+        assertFalse(d.isWord("cat"));
+        assertEquals(Collections.singleton("cot"), bk.getCorrections("cut"));
+        assertTrue(d.addWord("cat"));
+        assertEquals(new TreeSet<>(Arrays.asList("cat", "cot")), lev.getCorrections("cut"));
+
+        try {
+            d.addWord("not a word");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            base.addWord("dog");
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void testWordIndexBuiltByCompaction() throws Exception {
+        Dictionary base = new Dictionary(new TokenScanner(new StringReader("the cat hello")));
+        List<Runnable> compactions = new ArrayList<>();
+        OverlayWordSet words =
+            new OverlayWordSet(base.getWordSet(), 2, compactions::add);
+        Dictionary d = Dictionary.of(words);
+        List<String> builtBy = Collections.synchronizedList(new ArrayList<>());
+        WordIndex<Integer> index = new WordIndex<>(d, set -> {
+            builtBy.add(Thread.currentThread().getName());
+            return set.size();
+        });
+        assertEquals(Collections.singletonList(3), index.indexes());
+
+        assertTrue(d.addWord("cot"));
+        assertTrue(d.removeWord("cat"));
+        assertEquals(1, compactions.size());
+        Thread compactor = new Thread(compactions.get(0), "compactor");
+        compactor.start();
+        compactor.join();
+        assertEquals("compactor", builtBy.get(builtBy.size() - 1));
+
+        int builds = builtBy.size();
+        assertEquals(Collections.singletonList(3), index.indexes());
+        assertEquals(builds, builtBy.size());
+        assertTrue(index.isOverlay());
+
+        Thread writer = new Thread(() -> d.addWord("dog"), "writer");
+        writer.start();
+        writer.join();
+        assertEquals("writer", builtBy.get(builtBy.size() - 1));
+        builds = builtBy.size();
+        assertEquals(Arrays.asList(3, 1), index.indexes());
+        assertEquals(Arrays.asList(3, 1), index.indexes());
+        assertEquals(builds, builtBy.size());
+    }
+
+    @Test
+    public void testSpellCheckMetrics() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat on a mat")));
+        SpellCheckMetrics metrics = new SpellCheckMetrics();
+        SpellChecker checker = new SpellChecker(new SwapCorrector(d), d, metrics);
+        StringWriter out = new StringWriter();
+        checker.checkDocument(new StringReader("The cta sat on a mta, zzz."), out,
+            CorrectionPolicy.FIRST_SUGGESTION);
+        assertEquals("The cat sat on a mat, zzz.", out.toString());
+        assertEquals(1, metrics.getDocuments());
+        assertEquals(14, metrics.getTokens());
+        assertEquals(7, metrics.getWords());
+        assertEquals(3, metrics.getMisspellings());
+        assertEquals(2, metrics.getReplacements());
+        assertArrayEquals(new String[] {"SwapCorrector"}, metrics.getCorrectorNames());
+        assertEquals(3, metrics.getCorrectorLatency("SwapCorrector").getCount());
+        assertTrue(metrics.getCorrectorLatencyNanos("SwapCorrector", 99)
+            >= metrics.getCorrectorLatencyNanos("SwapCorrector", 50));
+        metrics.reset();
+        assertEquals(0, metrics.getTokens());
+        assertEquals(0, metrics.getCorrectorNames().length);
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.getCount());
+        assertEquals(1000000, h.getMax());
+        assertEquals(500500.0, h.getMean(), 1e-9);
+        long p50 = h.getValueAtPercentile(50);
+        long p99 = h.getValueAtPercentile(99);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 1.04);
+        assertTrue(p99 >= 990000 && p99 <= 990000 * 1.04);
+        assertEquals(1000000, h.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testStreamingSpellChecker() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat on a mat")));
+        SpellChecker sc = new SpellChecker(new SwapCorrector(d), d);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(i % 3 == 0 ? "Teh cta sat, " : "the mat on a cat. ");
+        }
+        StringWriter expected = new StringWriter();
+        List<Misspelling> misspellings = sc.checkDocument(new StringReader(text.toString()),
+            expected, CorrectionPolicy.FIRST_SUGGESTION);
+
+        StringWriter out = new StringWriter();
+        List<Misspelling> events = new ArrayList<>();
+        AsyncCorrectionPolicy later = (word, suggestions) -> CompletableFuture.supplyAsync(
+            () -> CorrectionPolicy.FIRST_SUGGESTION.choose(word, suggestions));
+        long found = new StreamingSpellChecker(sc, Executors.newCachedThreadPool(), 2)
+            .checkDocumentAsync(new StringReader(text.toString()), out, later, events::add);
+        assertEquals(misspellings.size(), found);
+        assertEquals(expected.toString(), out.toString());
+        assertEquals(misspellings.toString(), events.toString());
+        assertEquals(4, events.get(1).getOffset());
+        assertEquals("cat", events.get(1).getReplacement());
+
+        try {
+            new StreamingSpellChecker(sc).checkDocument(new StringReader(text.toString()), null,
+                (word, suggestions) -> {
+                    throw new IllegalStateException();
+                }, null);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+        }
+
+        CompletableFuture<String> never = new CompletableFuture<>();
+        StreamingSpellChecker impatient = new StreamingSpellChecker(sc,
+            Executors.newCachedThreadPool(), 2, 50, TimeUnit.MILLISECONDS);
+        try {
+            impatient.checkDocumentAsync(new StringReader(text.toString()), new StringWriter(),
+                (word, suggestions) -> never, null);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(never.isCancelled());
+    }
+
+    @Test
+    public void testBestRankedPolicy() {
+        assertEquals("This", CorrectionPolicy.BEST_RANKED.choose("Thsi",
+            Arrays.asList("Tahis", "This", "Thus")));
+        assertEquals("cat", CorrectionPolicy.BEST_RANKED.choose("cst",
+            Arrays.asList("cat", "cot", "cut")));
+        assertEquals("xyz", CorrectionPolicy.BEST_RANKED.choose("xyz",
+            Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testSpellCheckProcessorAcrossChunks() throws Exception {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat on a mat")));
+        SpellChecker sc = new SpellChecker(new SwapCorrector(d), d);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SpellCheckProcessor processor = new SpellCheckProcessor(sc,
+                CorrectionPolicy.FIRST_SUGGESTION, executor, 1);
+            List<Misspelling> events = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture<Void> done = processor.consume(events::add);
+            try (SubmissionPublisher<CharSequence> chat = new SubmissionPublisher<>()) {
+                chat.subscribe(processor);
+                chat.submit("The c");
+                chat.submit("ta s");
+                chat.submit("at on a m");
+                chat.submit("ta");
+                chat.submit(" " + "x".repeat(SpellCheckProcessor.MAX_WORD_LENGTH));
+                chat.submit("xx teh");
+            }
+            done.get(10, TimeUnit.SECONDS);
+            assertEquals(3, events.size());
+            assertEquals(4, events.get(0).getOffset());
+            assertEquals("cta", events.get(0).getWord());
+            assertEquals("cat", events.get(0).getReplacement());
+            assertEquals(17, events.get(1).getOffset());
+            assertEquals("mta", events.get(1).getWord());
+            assertEquals("teh", events.get(2).getWord());
+            assertEquals(24 + SpellCheckProcessor.MAX_WORD_LENGTH, events.get(2).getOffset());
+            assertEquals(6, processor.getChunks());
+            assertEquals(27 + SpellCheckProcessor.MAX_WORD_LENGTH, processor.getChars());
+            assertEquals(6, processor.getChunkLatency().getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String request(int port, String method, String path, String body, int status)
+        throws IOException {
+        HttpURLConnection c =
+            (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        c.setRequestMethod(method);
+        if (body != null) {
+            c.setDoOutput(true);
+            try (OutputStream out = c.getOutputStream()) {
+                out.write(body.getBytes("UTF-8"));
+            }
+        }
+        assertEquals(status, c.getResponseCode());
+        try (InputStream in = status == 200 ? c.getInputStream() : c.getErrorStream()) {
+            return new String(in.readAllBytes(), "UTF-8");
+        }
+    }
+
+    @Test
+    public void testSpellCheckServer() throws Exception {
+        Dictionary d =
+            new Dictionary(new TokenScanner(new StringReader("the cat act sat on a mat")));
+        try (SpellCheckServer server = new SpellCheckServer(d, new SwapCorrector(d),
+                new InetSocketAddress("127.0.0.1", 0))) {
+            int port = server.getPort();
+            assertEquals("{\"word\":\"cat\",\"isWord\":true}",
+                request(port, "GET", "/isWord?word=cat", null, 200));
+            assertEquals("{\"word\":\"tca\",\"isWord\":false}",
+                request(port, "GET", "/isWord?word=tca", null, 200));
+
+            List<CompletableFuture<String>> answers = new ArrayList<>();
+            ExecutorService clients = Executors.newCachedThreadPool();
+            try {
+                for (int i = 0; i < 50; i++) {
+                    answers.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return request(port, "GET", "/corrections?word=Cta", null, 200);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, clients));
+                }
+                for (CompletableFuture<String> answer : answers) {
+                    assertEquals("{\"word\":\"Cta\",\"corrections\":[\"Cat\"]}",
+                        answer.get(10, TimeUnit.SECONDS));
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+            assertTrue(server.getMeanBatchSize() >= 1);
+
+            assertEquals("{\"text\":\"the mat\\nsat\",\"misspellings\":[{\"offset\":4,"
+                + "\"word\":\"mta\",\"suggestions\":[\"mat\"],\"replacement\":\"mat\"}]}",
+                request(port, "POST", "/check?policy=best", "the mta\nsat", 200));
+            request(port, "GET", "/isWord", null, 400);
+            request(port, "GET", "/check", null, 405);
+            request(port, "POST", "/check?policy=random", "cta", 400);
+            request(port, "GET", "/isWordy?word=cat", null, 404);
+        }
+    }
+
+    @Test
+    public void testCorrectionBatcherSurvivesErrors() throws Exception {
+        Corrector fragile = new Corrector() {
+            public Set<String> getCorrections(String wrong) {
+                if (wrong.equals("boom")) {
+                    throw new AssertionError(wrong);
+                }
+                return Collections.singleton(wrong + "!");
+            }
+        };
+        CorrectionBatcher batcher = new CorrectionBatcher(fragile, 4, 2, 16);
+        CompletableFuture<Set<String>> boom = batcher.getCorrections("boom");
+        try {
+            boom.get(10, TimeUnit.SECONDS);
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        assertEquals(Collections.singleton("cat!"),
+            batcher.getCorrections("cat").get(10, TimeUnit.SECONDS));
+
+        batcher.close();
+        try {
+            batcher.getCorrections("cat");
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException e) {
+        }
+    }
+
+    @Test
+    public void testCorrectionBatcherBoundedAndSkipsCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> asked = Collections.synchronizedList(new ArrayList<String>());
+        Corrector blocking = new Corrector() {
+            public Set<String> getCorrections(String wrong) {
+                asked.add(wrong);
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Collections.singleton(wrong + "!");
+            }
+        };
+        CorrectionBatcher batcher = new CorrectionBatcher(blocking, 4, 1, 2);
+        try {
+            CompletableFuture<Set<String>> first = batcher.getCorrections("first");
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            CompletableFuture<Set<String>> gone = batcher.getCorrections("gone");
+            CompletableFuture<Set<String>> kept = batcher.getCorrections("kept");
+            try {
+                batcher.getCorrections("full");
+                fail("Expected RejectedExecutionException");
+            } catch (RejectedExecutionException e) {
+            }
+            assertTrue(gone.cancel(false));
+            release.countDown();
+            assertEquals(Collections.singleton("first!"), first.get(10, TimeUnit.SECONDS));
+            assertEquals(Collections.singleton("kept!"), kept.get(10, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("first", "kept"), asked);
+            assertEquals(1, batcher.getAbandoned());
+        } finally {
+            release.countDown();
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void testWordFrequencies() throws IOException {
+        WordFrequencies counts = WordFrequencies.read(new StringReader(
+            "the 500\nCat\t20\ncat,5\nsat\nNew York 9\n 42\nmat 7 \n"));
+        assertEquals(500, counts.getCount("THE"));
+        assertEquals(25, counts.getCount("cat"));
+        assertEquals(7, counts.getCount("mat"));
+        assertEquals(0, counts.getCount("sat"));
+        assertEquals(0, counts.getCount("york"));
+        assertEquals(3, counts.size());
+        assertEquals(532, counts.getTotal());
+
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat sat")));
+        WordFrequencies learned = WordFrequencies.learn(d,
+            new TokenScanner(new StringReader("The cat sat on the mat; the CAT ran.")));
+        assertEquals(3, learned.getCount("the"));
+        assertEquals(2, learned.getCount("cat"));
+        assertEquals(0, learned.getCount("mat"));
+        assertFalse(d.hasFrequencies());
+        assertEquals(0, d.getFrequency("the"));
+        Dictionary counted = d.withFrequencies(learned).withLookupCache(16);
+        assertTrue(counted.hasFrequencies());
+        assertEquals(2, counted.getFrequency("Cat"));
+        assertTrue(counted.isWord("sat"));
+    }
+
+    @Test
+    public void testSuggestionRanker() throws IOException {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader(
+            "bat cat hat rat mat cart chat at")));
+        WordFrequencies counts = new WordFrequencies();
+        counts.add("hat", 50);
+        counts.add("rat", 70);
+        counts.add("cart", 1000);
+        counts.add("chat", 100);
+        SuggestionRanker ranker = new SuggestionRanker(d.withFrequencies(counts), 3);
+        List<String> candidates = Arrays.asList("at", "bat", "cart", "hat", "mat", "rat", "chat");
+        assertEquals(Arrays.asList("rat", "hat", "at"), ranker.rank("zat", candidates));
+        assertEquals(Arrays.asList("at", "bat", "hat"),
+            new SuggestionRanker(d, 3).rank("zat", candidates));
+        assertEquals(Collections.emptyList(), ranker.rank("zat", Collections.<String>emptySet()));
+
+        SpellChecker sc = new SpellChecker(new Levenshtein(d), d, null,
+            new SuggestionRanker(d.withFrequencies(counts)));
+        List<Misspelling> found = sc.checkDocument(new StringReader("cht at"), null,
+            CorrectionPolicy.FIRST_SUGGESTION);
+        assertEquals(Arrays.asList("chat", "cat"), found.get(0).getSuggestions());
+        assertEquals("chat", found.get(0).getReplacement());
+        found = new SpellChecker(new Levenshtein(d), d).checkDocument(
+            new StringReader("cht at"), null, CorrectionPolicy.FIRST_SUGGESTION);
+        assertEquals(Arrays.asList("cat", "chat"), found.get(0).getSuggestions());
+    }
+
+    @Test
+    public void testCompositeCorrector() throws Exception {
+        Dictionary d = new Dictionary(new TokenScanner(new StringReader("the cat act sat mat")));
+        Corrector typos = new FileCorrector(new StringReader("cta,act\nteh,the\n"));
+        Corrector slow = new Corrector() {
+            public Set<String> getCorrections(String wrong) {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    // Timed out.
+                }
+                return makeSet(new String[]{"slow"});
+            }
+        };
+
+        CompositeCorrector parallel = new CompositeCorrector(CompositeCorrector.Mode.PARALLEL)
+            .with(typos).with(new SwapCorrector(d), 5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("act", "cat"),
+            new ArrayList<>(parallel.getCorrections("cta")));
+        assertEquals(Arrays.asList("Act", "Cat"),
+            new ArrayList<>(parallel.getCorrections("Cta")));
+        assertEquals(makeSet(new String[]{"mat"}), parallel.getCorrections("mta"));
+
+        CompositeCorrector cascade = new CompositeCorrector(CompositeCorrector.Mode.CASCADE)
+            .with(typos).with(new SwapCorrector(d));
+        assertEquals(makeSet(new String[]{"act"}), cascade.getCorrections("cta"));
+        assertEquals(makeSet(new String[]{"mat"}), cascade.getCorrections("mta"));
+        assertTrue(cascade.getCorrections("zzz").isEmpty());
+        assertEquals(2, cascade.getNumChildren());
+
+        CompositeCorrector budgeted = parallel.with(slow, 50, TimeUnit.MILLISECONDS);
+        assertEquals(makeSet(new String[]{"act", "cat"}), budgeted.getCorrections("cta"));
+        assertEquals(1, budgeted.getTimeouts(2));
+        assertEquals(2, parallel.getNumChildren());
+        try {
+            budgeted.getCorrections("12");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testCompositeCorrectorOverrunningChild() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Corrector stubborn = new Corrector() {
+            public Set<String> getCorrections(String wrong) {
+                while (true) {
+                    try {
+                        release.await();
+                        return makeSet(new String[]{"late"});
+                    } catch (InterruptedException e) {
+                        // Ignored, as by the Correctors of the package.
+                    }
+                }
+            }
+        };
+        ExecutorService one = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>());
+        try {
+            CompositeCorrector composite =
+                new CompositeCorrector(CompositeCorrector.Mode.PARALLEL, one)
+                .with(new FileCorrector(new StringReader("cta,act\n")))
+                .with(stubborn, 50, TimeUnit.MILLISECONDS);
+            assertEquals(makeSet(new String[]{"act"}), composite.getCorrections("cta"));
+            assertEquals(1, composite.getTimeouts(1));
+
+            // The first child still holds the only thread, so the next one is rejected.
+            assertEquals(makeSet(new String[]{"act"}), composite.getCorrections("cta"));
+            assertEquals(2, composite.getTimeouts(1));
+            assertEquals(0, composite.getLatency(1).getCount());
+
+            release.countDown();
+            one.shutdown();
+            assertTrue(one.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(1, composite.getLatency(1).getCount());
+        } finally {
+            release.countDown();
+            one.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReloadableDictionary() throws Exception {
+        File file = File.createTempFile("words", ".txt");
+        file.deleteOnExit();
+        Writer w = new FileWriter(file);
+        w.write("the cat");
+        w.close();
+        Reloadable<Dictionary> dict =
+            new Reloadable<>(() -> Dictionary.make(file.getPath()), file.toPath());
+        try {
+            Dictionary first = dict.get();
+            assertEquals(1, dict.getGeneration());
+            assertFalse(first.isWord("dog"));
+
+            w = new FileWriter(file);
+            w.write("the cat dog");
+            w.close();
+            assertTrue(dict.reload());
+            assertTrue(dict.getGeneration() >= 2);
+            assertTrue(dict.get().isWord("dog"));
+            assertFalse(first.isWord("dog"));
+
+            file.delete();
+            long generation = dict.getGeneration();
+            assertFalse(dict.reload());
+            assertEquals(generation, dict.getGeneration());
+            assertTrue(dict.getLastFailure() instanceof FileNotFoundException);
+            assertTrue(dict.get().isWord("dog"));
+        } finally {
+            dict.close();
+        }
+    }
+
+    @Test
+    public void testReloadableDictionaryWatchesFile() throws Exception {
+        File dir = Files.createTempDirectory("reload").toFile();
+        File file = new File(dir, "words.txt");
+        Writer w = new FileWriter(file);
+        w.write("the cat");
+        w.close();
+        Reloadable<Dictionary> dict =
+            new Reloadable<>(() -> Dictionary.make(file.getPath()), file.toPath());
+        try {
+            // Another file in the watched directory does not cause a reload.
+            w = new FileWriter(new File(dir, "other.txt"));
+            w.write("the cat dog");
+            w.close();
+            Thread.sleep(Reloadable.SETTLE_MILLIS * 3);
+            assertEquals(1, dict.getGeneration());
+
+            w = new FileWriter(file);
+            w.write("the cat dog");
+            w.close();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (dict.getGeneration() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(dict.getGeneration() >= 2);
+            assertTrue(dict.get().isWord("dog"));
+            assertNull(dict.getLastFailure());
+        } finally {
+            dict.close();
+        }
+    }
+
   /**
     * spellCheckFiles Runs the spell checker on some test input.  See the description of the
     * inputs below.